@@ -0,0 +1,2 @@
+ALTER TABLE vacancies ADD COLUMN version int NOT NULL DEFAULT 0;
+ALTER TABLE candidates ADD COLUMN version int NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+ALTER TABLE vacancies ADD COLUMN deleted_at timestamp;
+ALTER TABLE candidates ADD COLUMN deleted_at timestamp;
+ALTER TABLE files ADD COLUMN deleted_at timestamp;
@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+--changeset dreamjob:009_ddl_create_deleted_at_partial_indexes dbms:postgresql
+CREATE INDEX vacancies_live_city_creation_date_idx ON vacancies (city_id, creation_date) WHERE deleted_at IS NULL;
+CREATE INDEX vacancies_deleted_at_idx ON vacancies (deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX candidates_live_city_creation_date_idx ON candidates (city_id, creation_date) WHERE deleted_at IS NULL;
+CREATE INDEX candidates_deleted_at_idx ON candidates (deleted_at) WHERE deleted_at IS NOT NULL;
+CREATE INDEX files_deleted_at_idx ON files (deleted_at) WHERE deleted_at IS NOT NULL;
+
+--changeset dreamjob:009_ddl_create_live_id_partial_indexes dbms:postgresql
+CREATE INDEX vacancies_live_id_idx ON vacancies (id) WHERE deleted_at IS NULL;
+CREATE INDEX candidates_live_id_idx ON candidates (id) WHERE deleted_at IS NULL;
+CREATE INDEX files_live_id_idx ON files (id) WHERE deleted_at IS NULL;
@@ -0,0 +1,5 @@
+create table storage_scrub_cursors
+(
+    name     varchar primary key,
+    position varchar not null
+);
@@ -0,0 +1,9 @@
+ALTER TABLE files ADD COLUMN user_id int REFERENCES users (id);
+ALTER TABLE files ADD COLUMN size bigint;
+
+create table user_storage
+(
+    user_id     int primary key references users (id),
+    used_bytes  bigint not null,
+    quota_bytes bigint
+);
@@ -0,0 +1,3 @@
+ALTER TABLE files ADD COLUMN content_type varchar;
+ALTER TABLE files ADD COLUMN sha256 varchar(64);
+ALTER TABLE files ADD COLUMN created_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP;
@@ -0,0 +1,182 @@
+package ru.job4j.dreamjob.cache;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Кэш с ограничением по размеру и времени жизни записей.
+ * Одновременные промахи по одному ключу приводят к единственному вызову загрузчика,
+ * остальные потоки дожидаются его результата. При переполнении вытесняются самые старые записи.
+ */
+@ThreadSafe
+public class BoundedCache<K, V> {
+
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final Queue<Node<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final LongSupplier ticker;
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    BoundedCache(int maxSize, Duration ttl, LongSupplier ticker) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        while (true) {
+            var entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(ticker.getAsLong(), ttlNanos)) {
+                    hits.increment();
+                    return entry.join();
+                }
+                entries.remove(key, entry);
+                continue;
+            }
+            var created = new Entry<V>(ticker.getAsLong());
+            if (entries.putIfAbsent(key, created) != null) {
+                continue;
+            }
+            misses.increment();
+            insertionOrder.add(new Node<>(key, created));
+            queued.incrementAndGet();
+            evictIfNeeded();
+            return load(key, created, loader);
+        }
+    }
+
+    private V load(K key, Entry<V> entry, Function<? super K, ? extends V> loader) {
+        try {
+            V value = loader.apply(key);
+            entry.value.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public V getIfPresent(K key) {
+        var entry = entries.get(key);
+        if (entry == null || !entry.value.isDone() || entry.isExpired(ticker.getAsLong(), ttlNanos)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.join();
+    }
+
+    public void put(K key, V value) {
+        var entry = new Entry<V>(ticker.getAsLong());
+        entry.value.complete(value);
+        entries.put(key, entry);
+        insertionOrder.add(new Node<>(key, entry));
+        queued.incrementAndGet();
+        evictIfNeeded();
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    /* очередь хранит ссылки и на уже удаленные записи, поэтому ее длину тоже держим в пределах */
+    private void evictIfNeeded() {
+        while (entries.size() > maxSize || queued.get() > 2 * maxSize) {
+            var oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (entries.size() > maxSize) {
+                if (entries.remove(oldest.key, oldest.entry)) {
+                    evictions.increment();
+                }
+            } else if (entries.get(oldest.key) == oldest.entry) {
+                insertionOrder.add(oldest);
+                queued.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final CompletableFuture<V> value = new CompletableFuture<>();
+
+        private final long createdAt;
+
+        private Entry(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - createdAt >= ttlNanos;
+        }
+
+        private V join() {
+            try {
+                return value.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static final class Node<K, V> {
+
+        private final K key;
+
+        private final Entry<V> entry;
+
+        private Node(K key, Entry<V> entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.job4j.dreamjob.cache;
+
+public class CacheStatistics {
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long evictions;
+
+    private final int size;
+
+    public CacheStatistics(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getHitRatio() {
+        var requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
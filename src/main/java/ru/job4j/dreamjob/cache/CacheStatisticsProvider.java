@@ -0,0 +1,8 @@
+package ru.job4j.dreamjob.cache;
+
+public interface CacheStatisticsProvider {
+
+    String getCacheName();
+
+    CacheStatistics getStatistics();
+}
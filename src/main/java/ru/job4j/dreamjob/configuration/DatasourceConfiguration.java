@@ -1,41 +1,136 @@
 package ru.job4j.dreamjob.configuration;
 
 import org.apache.commons.dbcp2.BasicDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
 import org.sql2o.Sql2o;
 import org.sql2o.converters.Converter;
 import org.sql2o.converters.ConverterException;
 import org.sql2o.quirks.NoQuirks;
 import org.sql2o.quirks.Quirks;
+import ru.job4j.dreamjob.jdbc.ProfilingDataSource;
+import ru.job4j.dreamjob.jdbc.QueryStatisticsCollector;
 
 import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
-@Configuration
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "repository.type", havingValue = "sql2o", matchIfMissing = true)
 public class DatasourceConfiguration {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DatasourceConfiguration.class.getName());
+
+    private static final int WARM_UP_VALIDATION_TIMEOUT_SECONDS = 5;
+
+    /*
+     * Размер пула - это предел одновременных обращений к БД. В режиме виртуальных потоков
+     * запросы больше не ограничены пулом потоков Tomcat, и лишние ждут соединение не дольше maxWait
+     */
     @Bean
+    @Primary
     public DataSource connectionPool(@Value("${datasource.url}") String url,
                                      @Value("${datasource.username}") String username,
-                                     @Value("${datasource.password}") String password) {
+                                     @Value("${datasource.password}") String password,
+                                     @Value("${datasource.pool.max-total}") int maxTotal,
+                                     @Value("${datasource.pool.max-wait}") Duration maxWait,
+                                     @Value("${datasource.pool.initial-size}") int initialSize) {
+        return createPool(url, username, password, maxTotal, maxWait, initialSize);
+    }
+
+    /* реплика для чтения подключается, только если задан datasource.replica.url */
+    @Bean
+    @ConditionalOnProperty(name = "datasource.replica.url")
+    public DataSource replicaConnectionPool(@Value("${datasource.replica.url}") String url,
+                                            @Value("${datasource.replica.username:${datasource.username}}") String username,
+                                            @Value("${datasource.replica.password:${datasource.password}}") String password,
+                                            @Value("${datasource.pool.max-total}") int maxTotal,
+                                            @Value("${datasource.pool.max-wait}") Duration maxWait,
+                                            @Value("${datasource.pool.initial-size}") int initialSize) {
+        return createPool(url, username, password, maxTotal, maxWait, initialSize);
+    }
+
+    /*
+     * DBCP открывает соединения при первом запросе, и первый пользователь после рестарта ждёт
+     * initial-size подключений к БД. С datasource.pool.warm-up=true пул создаётся в фоне сразу после старта:
+     * приложение уже принимает запросы, а проблемы с БД видны в логе, но не мешают подняться.
+     * Полученное соединение проверяется запросом к БД, а не только открывается
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpConnectionPool(ApplicationReadyEvent event) {
+        var environment = event.getApplicationContext().getEnvironment();
+        if (!environment.getProperty("datasource.pool.warm-up", Boolean.class, false)) {
+            return;
+        }
+        var warmUp = new Thread(() -> {
+            var dataSource = event.getApplicationContext().getBean(DataSource.class);
+            try (var connection = dataSource.getConnection()) {
+                if (connection.isValid(WARM_UP_VALIDATION_TIMEOUT_SECONDS)) {
+                    LOG.info("Connection pool is warmed up");
+                } else {
+                    LOG.warn("Connection pool warm-up failed: connection is not valid");
+                }
+            } catch (SQLException e) {
+                LOG.warn("Connection pool warm-up failed", e);
+            }
+        }, "connection-pool-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    /* запросы идут через ProfilingDataSource, сам пул остаётся бином, чтобы его состояние было видно напрямую */
+    @Bean
+    @Primary
+    public Sql2o databaseClient(DataSource dataSource, QueryStatisticsCollector queryStatisticsCollector) {
+        return createDatabaseClient(new ProfilingDataSource(dataSource, queryStatisticsCollector));
+    }
+
+    /* без реплики все чтения идут в основную БД */
+    @Bean
+    public Sql2o replicaDatabaseClient(Sql2o databaseClient,
+                                       @Qualifier("replicaConnectionPool") Optional<DataSource> replicaConnectionPool,
+                                       QueryStatisticsCollector queryStatisticsCollector) {
+        return replicaConnectionPool
+                .map(pool -> createDatabaseClient(new ProfilingDataSource(pool, queryStatisticsCollector)))
+                .orElse(databaseClient);
+    }
+
+    /*
+     * пул и клиент собираются обычными методами, а не вызовом других @Bean-методов:
+     * такой вызов в @Configuration возвращает уже созданный бин основной БД, и реплика получила бы его.
+     * Тесты и бенчмарки собирают пул и клиент через них же
+     */
+    static DataSource createPool(String url, String username, String password,
+                                         int maxTotal, Duration maxWait, int initialSize) {
         return new BasicDataSource() {
             {
                 setUrl(url);
                 setUsername(username);
                 setPassword(password);
+                setMaxTotal(maxTotal);
+                setMaxIdle(maxTotal);
+                setMaxWaitMillis(maxWait.toMillis());
+                setInitialSize(initialSize);
             }
         };
     }
 
-    @Bean
-    public Sql2o databaseClient(DataSource dataSource) {
+    static Sql2o createDatabaseClient(DataSource dataSource) {
         return new Sql2o(dataSource, createConverters());
     }
 
-    private Quirks createConverters() {
+    private static Quirks createConverters() {
         return new NoQuirks() {
             {
                 converters.put(LocalDateTime.class, new Converter<LocalDateTime>() {
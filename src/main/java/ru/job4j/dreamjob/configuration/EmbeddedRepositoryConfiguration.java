@@ -0,0 +1,107 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.job4j.dreamjob.persistence.WriteAheadLog;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.CityRepository;
+import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.repository.MemoryCandidateRepository;
+import ru.job4j.dreamjob.repository.MemoryCityRepository;
+import ru.job4j.dreamjob.repository.MemoryFileRepository;
+import ru.job4j.dreamjob.repository.MemoryScrubCursorRepository;
+import ru.job4j.dreamjob.repository.MemoryUserRepository;
+import ru.job4j.dreamjob.repository.MemoryUserStorageRepository;
+import ru.job4j.dreamjob.repository.MemoryVacancyRepository;
+import ru.job4j.dreamjob.repository.ScrubCursorRepository;
+import ru.job4j.dreamjob.repository.UserRepository;
+import ru.job4j.dreamjob.repository.UserStorageRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.nio.file.Path;
+
+/*
+ * Режим repository.type=embedded: вместо PostgreSQL данные хранятся в памяти,
+ * а каждое изменение дописывается в журнал в repository.embedded.directory.
+ * Бины Sql2o-репозиториев в этом режиме не создаются, поэтому сервисы получают эти.
+ */
+@Configuration
+@ConditionalOnProperty(name = "repository.type", havingValue = "embedded")
+public class EmbeddedRepositoryConfiguration {
+
+    private final Path directory;
+
+    private final boolean fsync;
+
+    private final int compactAfter;
+
+    public EmbeddedRepositoryConfiguration(@Value("${repository.embedded.directory}") String directory,
+                                           @Value("${repository.embedded.fsync}") boolean fsync,
+                                           @Value("${repository.embedded.compact-after}") int compactAfter) {
+        this.directory = Path.of(directory);
+        this.fsync = fsync;
+        this.compactAfter = compactAfter;
+    }
+
+    @Bean
+    public WriteAheadLog vacanciesLog() {
+        return log("vacancies");
+    }
+
+    @Bean
+    public WriteAheadLog candidatesLog() {
+        return log("candidates");
+    }
+
+    @Bean
+    public WriteAheadLog filesLog() {
+        return log("files");
+    }
+
+    @Bean
+    public WriteAheadLog usersLog() {
+        return log("users");
+    }
+
+    @Bean
+    public VacancyRepository memoryVacancyRepository(WriteAheadLog vacanciesLog) {
+        return new MemoryVacancyRepository(vacanciesLog);
+    }
+
+    @Bean
+    public CandidateRepository memoryCandidateRepository(WriteAheadLog candidatesLog) {
+        return new MemoryCandidateRepository(candidatesLog);
+    }
+
+    @Bean
+    public FileRepository memoryFileRepository(WriteAheadLog filesLog) {
+        return new MemoryFileRepository(filesLog);
+    }
+
+    @Bean
+    public UserRepository memoryUserRepository(WriteAheadLog usersLog) {
+        return new MemoryUserRepository(usersLog);
+    }
+
+    /* города - справочник, он не меняется и в журнал не пишется */
+    @Bean
+    public CityRepository memoryCityRepository() {
+        return new MemoryCityRepository();
+    }
+
+    @Bean
+    public ScrubCursorRepository memoryScrubCursorRepository() {
+        return new MemoryScrubCursorRepository();
+    }
+
+    @Bean
+    public UserStorageRepository memoryUserStorageRepository() {
+        return new MemoryUserStorageRepository();
+    }
+
+    private WriteAheadLog log(String name) {
+        return new WriteAheadLog(directory, name, fsync, compactAfter);
+    }
+}
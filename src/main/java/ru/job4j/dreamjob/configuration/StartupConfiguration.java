@@ -0,0 +1,109 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Schedules;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Настройки запуска. Профиль fast-startup включает ленивую инициализацию бинов,
+ * а после старта в лог выводится время запуска и бины, которые создавались дольше всего.
+ */
+@Configuration
+public class StartupConfiguration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StartupConfiguration.class.getName());
+
+    private static final String BEAN_INSTANTIATION = "spring.beans.instantiate";
+
+    private final int reportTop;
+
+    public StartupConfiguration(@Value("${startup.report.top}") int reportTop) {
+        this.reportTop = reportTop;
+    }
+
+    /*
+     * @Scheduled регистрируется только у созданного бина: ленивый бин с фоновой задачей
+     * никто не создаст, и задача не запустится. Поэтому такие бины всегда создаются при старте.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null && hasScheduledMethods(beanType);
+    }
+
+    static boolean hasScheduledMethods(Class<?> beanType) {
+        return !MethodIntrospector.selectMethods(ClassUtils.getUserClass(beanType),
+                (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                        AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                                || AnnotatedElementUtils.hasAnnotation(method, Schedules.class) ? Boolean.TRUE : null
+        ).isEmpty();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportStartup(ApplicationReadyEvent event) {
+        if (reportTop <= 0 || !(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        var timeline = startup.drainBufferedTimeline();
+        var report = new StringBuilder("Started in ")
+                .append(Duration.between(timeline.getStartTime(), Instant.now()).toMillis())
+                .append(" ms, slowest beans (own time without dependencies):");
+        selfTimes(timeline).entrySet().stream()
+                .sorted(Map.Entry.<String, Duration>comparingByValue().reversed())
+                .limit(reportTop)
+                .forEach(bean -> report.append(System.lineSeparator())
+                        .append(String.format("%8d ms  %s", bean.getValue().toMillis(), bean.getKey())));
+        LOG.info(report.toString());
+    }
+
+    /*
+     * Шаг создания бина включает создание всех его зависимостей,
+     * поэтому из времени каждого шага вычитается время вложенных в него шагов
+     */
+    private static Map<String, Duration> selfTimes(StartupTimeline timeline) {
+        var beans = new HashMap<Long, String>();
+        var times = new HashMap<Long, Duration>();
+        for (var event : timeline.getEvents()) {
+            var step = event.getStartupStep();
+            if (BEAN_INSTANTIATION.equals(step.getName())) {
+                beans.put(step.getId(), beanName(step));
+                times.merge(step.getId(), event.getDuration(), Duration::plus);
+            }
+        }
+        for (var event : timeline.getEvents()) {
+            var step = event.getStartupStep();
+            if (BEAN_INSTANTIATION.equals(step.getName()) && beans.containsKey(step.getParentId())) {
+                times.merge(step.getParentId(), event.getDuration().negated(), Duration::plus);
+            }
+        }
+        var result = new HashMap<String, Duration>();
+        times.forEach((id, time) -> result.merge(beans.get(id), time, Duration::plus));
+        return result;
+    }
+
+    private static String beanName(StartupStep step) {
+        for (var tag : step.getTags()) {
+            if ("beanName".equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,44 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import ru.job4j.dreamjob.storage.BlobStore;
+import ru.job4j.dreamjob.storage.CachingBlobStore;
+import ru.job4j.dreamjob.storage.LocalBlobStore;
+import ru.job4j.dreamjob.storage.S3BlobStore;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+/*
+ * storage.type=local хранит файлы в file.directory, как раньше; storage.type=s3 - в бакете S3-совместимого хранилища,
+ * и тогда узлам не нужен общий диск. storage.cache.max-size больше нуля добавляет перед S3 локальный кэш.
+ */
+@Configuration
+public class StorageConfiguration {
+
+    @Bean
+    public BlobStore blobStore(@Value("${storage.type}") String type,
+                               @Value("${file.directory}") String directory,
+                               @Value("${storage.s3.endpoint}") URI endpoint,
+                               @Value("${storage.s3.region}") String region,
+                               @Value("${storage.s3.bucket}") String bucket,
+                               @Value("${storage.s3.access-key}") String accessKey,
+                               @Value("${storage.s3.secret-key}") String secretKey,
+                               @Value("${storage.s3.part-size}") DataSize partSize,
+                               @Value("${storage.cache.directory}") String cacheDirectory,
+                               @Value("${storage.cache.max-size}") DataSize cacheMaxSize) {
+        return switch (type) {
+            case "local" -> new LocalBlobStore(Path.of(directory));
+            case "s3" -> {
+                var s3 = new S3BlobStore(endpoint, region, bucket, accessKey, secretKey, (int) partSize.toBytes());
+                yield cacheMaxSize.toBytes() > 0
+                        ? new CachingBlobStore(s3, Path.of(cacheDirectory), cacheMaxSize.toBytes())
+                        : s3;
+            }
+            default -> throw new IllegalArgumentException("Unknown storage.type: " + type);
+        };
+    }
+}
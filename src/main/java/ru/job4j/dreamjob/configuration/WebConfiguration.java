@@ -0,0 +1,135 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+
+/**
+ * Статические ресурсы. Thymeleaf выводит их адреса с хэшем содержимого в имени файла,
+ * такие ответы кэшируются браузером на год без перепроверки. По адресу без хэша ресурс
+ * тоже доступен, но его содержимое может измениться, поэтому он перепроверяется каждый раз.
+ */
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    private static final List<String> ASSET_DIRECTORIES = List.of("css", "js", "umd");
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (var directory : ASSET_DIRECTORIES) {
+            registry.addResourceHandler("/" + directory + "/**")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .setCacheControl(CacheControl.noCache())
+                    .resourceChain(true)
+                    .addResolver(versionResourceResolver());
+        }
+    }
+
+    static VersionResourceResolver versionResourceResolver() {
+        return new ImmutableVersionResourceResolver().addContentVersionStrategy("/**");
+    }
+
+    /*
+     * Ресурс, найденный по версии из адреса, VersionResourceResolver возвращает как HttpResource с ETag,
+     * найденный по адресу без версии - как есть. Заголовки HttpResource выставляются после Cache-Control
+     * обработчика, поэтому только версионированные адреса получают immutable.
+     */
+    private static final class ImmutableVersionResourceResolver extends VersionResourceResolver {
+
+        @Override
+        protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                                   List<? extends Resource> locations, ResourceResolverChain chain) {
+            var resource = super.resolveResourceInternal(request, requestPath, locations, chain);
+            return resource instanceof HttpResource versioned ? new ImmutableResource(versioned) : resource;
+        }
+    }
+
+    private static final class ImmutableResource extends AbstractResource implements HttpResource {
+
+        private final HttpResource original;
+
+        private ImmutableResource(HttpResource original) {
+            this.original = original;
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            var headers = new HttpHeaders();
+            headers.putAll(original.getResponseHeaders());
+            headers.setCacheControl(IMMUTABLE);
+            return headers;
+        }
+
+        @Override
+        public boolean exists() {
+            return original.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return original.isReadable();
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return original.getURL();
+        }
+
+        @Override
+        public URI getURI() throws IOException {
+            return original.getURI();
+        }
+
+        @Override
+        public File getFile() throws IOException {
+            return original.getFile();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return original.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return original.lastModified();
+        }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return original.createRelative(relativePath);
+        }
+
+        @Override
+        public String getFilename() {
+            return original.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return original.getDescription();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return original.getInputStream();
+        }
+    }
+}
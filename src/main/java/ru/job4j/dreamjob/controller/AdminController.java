@@ -0,0 +1,53 @@
+package ru.job4j.dreamjob.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.job4j.dreamjob.cache.CacheStatistics;
+import ru.job4j.dreamjob.cache.CacheStatisticsProvider;
+import ru.job4j.dreamjob.dto.StorageScrubStatistics;
+import ru.job4j.dreamjob.jdbc.QueryStatistics;
+import ru.job4j.dreamjob.jdbc.QueryStatisticsCollector;
+import ru.job4j.dreamjob.service.StorageScrubberService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    private final List<CacheStatisticsProvider> caches;
+
+    private final QueryStatisticsCollector queryStatisticsCollector;
+
+    private final StorageScrubberService storageScrubberService;
+
+    public AdminController(List<CacheStatisticsProvider> caches, QueryStatisticsCollector queryStatisticsCollector,
+                           StorageScrubberService storageScrubberService) {
+        this.caches = caches;
+        this.queryStatisticsCollector = queryStatisticsCollector;
+        this.storageScrubberService = storageScrubberService;
+    }
+
+    @GetMapping("/caches")
+    public Map<String, CacheStatistics> getCacheStatistics() {
+        var statistics = new TreeMap<String, CacheStatistics>();
+        for (var cache : caches) {
+            statistics.put(cache.getCacheName(), cache.getStatistics());
+        }
+        return statistics;
+    }
+
+    @GetMapping("/queries")
+    public List<QueryStatistics> getQueryStatistics(@RequestParam(defaultValue = "20") int top) {
+        return queryStatisticsCollector.getTop(top);
+    }
+
+    @GetMapping("/storage-scrub")
+    public StorageScrubStatistics getStorageScrubStatistics() {
+        return storageScrubberService.getStatistics();
+    }
+}
@@ -0,0 +1,111 @@
+package ru.job4j.dreamjob.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.service.CandidateService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.List;
+
+@ThreadSafe
+@RestController
+@RequestMapping("/api/candidates")
+public class CandidateApiController {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final JsonFields<Candidate> FIELDS = new JsonFields<Candidate>()
+            .add("id", (generator, candidate) -> generator.writeNumber(candidate.getId()))
+            .add("name", (generator, candidate) -> generator.writeString(candidate.getName()))
+            .add("description", (generator, candidate) -> generator.writeString(candidate.getDescription()))
+            .add("creationDate", (generator, candidate) -> JsonFields.writeDateTime(generator, candidate.getCreationDate()))
+            .add("cityId", (generator, candidate) -> generator.writeNumber(candidate.getCityId()))
+            .add("fileId", (generator, candidate) -> generator.writeNumber(candidate.getFileId()))
+            .add("version", (generator, candidate) -> generator.writeNumber(candidate.getVersion()));
+
+    private final CandidateService candidateService;
+
+    private final JsonFactory jsonFactory;
+
+    public CandidateApiController(CandidateService candidateService, ObjectMapper objectMapper) {
+        this.candidateService = candidateService;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /* кандидаты отдаются построчно (NDJSON) пачками по id, следующую страницу клиент запрашивает с after = последний id */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getAll(@RequestParam(defaultValue = "0") int after,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String fields) {
+        var selected = selectFields(fields);
+        if (limit != null && limit < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must not be negative");
+        }
+        var max = limit == null ? Integer.MAX_VALUE : limit;
+        StreamingResponseBody body = outputStream -> writePages(outputStream, after, max, selected);
+        return ResponseEntity.ok().contentType(JsonFields.NDJSON).body(body);
+    }
+
+    private void writePages(OutputStream outputStream, int after, int limit, List<String> selected) throws IOException {
+        try (var generator = createGenerator(outputStream)) {
+            var lastId = after;
+            var remaining = limit;
+            while (remaining > 0) {
+                var size = Math.min(BATCH_SIZE, remaining);
+                var page = candidateService.findPage(lastId, size);
+                for (var candidate : page) {
+                    FIELDS.writeLine(generator, candidate, selected);
+                    lastId = candidate.getId();
+                }
+                generator.flush();
+                remaining -= page.size();
+                if (page.size() < size) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<String> getById(@PathVariable int id, @RequestParam(required = false) String fields) throws IOException {
+        var selected = selectFields(fields);
+        var candidateOptional = candidateService.findById(id);
+        if (candidateOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var writer = new StringWriter();
+        try (var generator = jsonFactory.createGenerator(writer)) {
+            FIELDS.write(generator, candidateOptional.get(), selected);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(writer.toString());
+    }
+
+    private List<String> selectFields(String fields) {
+        try {
+            return FIELDS.select(fields);
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage());
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        var generator = jsonFactory.createGenerator(outputStream);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+}
@@ -1,16 +1,25 @@
 package ru.job4j.dreamjob.controller;
 
 import net.jcip.annotations.ThreadSafe;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.User;
 import ru.job4j.dreamjob.service.CandidateService;
 import ru.job4j.dreamjob.service.CityService;
+import ru.job4j.dreamjob.upload.UploadValidator;
 
 import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.stream.Collectors;
 
 @ThreadSafe
 @Controller
@@ -21,9 +30,12 @@ public class CandidateController {
 
     private final CityService cityService;
 
-    public CandidateController(CandidateService candidateService, CityService cityService) {
+    private final UploadValidator uploadValidator;
+
+    public CandidateController(CandidateService candidateService, CityService cityService, UploadValidator uploadValidator) {
         this.candidateService = candidateService;
         this.cityService = cityService;
+        this.uploadValidator = uploadValidator;
     }
 
     @GetMapping
@@ -32,6 +44,31 @@ public class CandidateController {
         return "candidates/list";
     }
 
+    /* выгрузка в CSV потоком из курсора БД, фильтр по городу и дате создания (to - включительно) */
+    @GetMapping("/export.csv")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "0") int cityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        var cities = cityService.findAll().stream()
+                .collect(Collectors.toMap(City::getId, City::getName));
+        StreamingResponseBody body = outputStream -> {
+            try (var writer = new CsvWriter(outputStream)) {
+                writer.header("id", "name", "description", "creation_date", "city");
+                candidateService.streamAll(cityId,
+                        from == null ? null : from.atStartOfDay(),
+                        to == null ? null : to.plusDays(1).atStartOfDay(),
+                        candidate -> writer.field(candidate.getId())
+                                .field(candidate.getName())
+                                .field(candidate.getDescription())
+                                .field(candidate.getCreationDate())
+                                .field(cities.get(candidate.getCityId()))
+                                .endRow());
+            }
+        };
+        return CsvWriter.attachment("candidates.csv", body);
+    }
+
     @GetMapping("/create")
     public String getCreationPage(Model model, HttpSession session) {
         model.addAttribute("cities", cityService.findAll());
@@ -39,9 +76,9 @@ public class CandidateController {
     }
 
     @PostMapping("/create")
-    public String create(@ModelAttribute Candidate candidate, @RequestParam MultipartFile file, Model model) {
+    public String create(@ModelAttribute Candidate candidate, @RequestParam MultipartFile file, Model model, HttpSession session) {
         try {
-            candidateService.save(candidate, new FileDto(file.getOriginalFilename(), file.getBytes()));
+            candidateService.save(candidate, readUpload(file, session));
             return "redirect:/candidates";
         } catch (Exception exception) {
             model.addAttribute("message", exception.getMessage());
@@ -62,12 +99,16 @@ public class CandidateController {
     }
 
     @PostMapping("/update")
-    public String update(@ModelAttribute Candidate candidate, @RequestParam MultipartFile file, Model model) {
+    public String update(@ModelAttribute Candidate candidate, @RequestParam MultipartFile file, Model model, HttpSession session) {
         try {
             var isUpdated = candidateService.update(
                     candidate,
-                    new FileDto(file.getOriginalFilename(), file.getBytes()
-                    ));
+                    readUpload(file, session)
+            );
+            if (!isUpdated && candidateService.findById(candidate.getId()).isPresent()) {
+                model.addAttribute("message", "Резюме уже изменил другой пользователь. Откройте его заново и повторите правки");
+                return "errors/404";
+            }
             if (!isUpdated) {
                 model.addAttribute("message", "Резюме с указанным идентификатором не найдено");
                 return "errors/404";
@@ -88,4 +129,13 @@ public class CandidateController {
         }
         return "redirect:/candidates";
     }
+
+    private FileDto readUpload(MultipartFile file, HttpSession session) throws IOException {
+        var image = uploadValidator.read(file);
+        var user = (User) session.getAttribute("user");
+        if (user != null) {
+            image.setUserId(user.getId());
+        }
+        return image;
+    }
 }
@@ -0,0 +1,139 @@
+package ru.job4j.dreamjob.controller;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/*
+ * Построчная запись CSV по RFC 4180 прямо в поток ответа.
+ * Строка собирается в одном переиспользуемом StringBuilder, поэтому память не зависит от числа строк.
+ * BOM и CRLF нужны, чтобы Excel сразу открывал файл в UTF-8 с правильными переводами строк.
+ */
+final class CsvWriter implements Closeable {
+
+    static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private static final String FORMULA_TRIGGERS = "=+-@\t\r";
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer writer;
+
+    private final StringBuilder line = new StringBuilder(256);
+
+    private boolean firstField = true;
+
+    CsvWriter(OutputStream outputStream) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+    }
+
+    static ResponseEntity<StreamingResponseBody> attachment(String filename, StreamingResponseBody body) {
+        var disposition = ContentDisposition.attachment().filename(filename).build();
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+
+    CsvWriter field(String value) {
+        separate();
+        if (value == null) {
+            return this;
+        }
+        /* значения, похожие на формулу, Excel бы выполнил - экранируем апострофом; табуляция и CR в начале тоже запускают формулу */
+        var formula = !value.isEmpty() && FORMULA_TRIGGERS.indexOf(value.charAt(0)) >= 0;
+        var quoted = formula || needsQuotes(value);
+        if (quoted) {
+            line.append('"');
+        }
+        if (formula) {
+            line.append('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        if (quoted) {
+            line.append('"');
+        }
+        return this;
+    }
+
+    CsvWriter field(int value) {
+        separate();
+        line.append(value);
+        return this;
+    }
+
+    CsvWriter field(boolean value) {
+        separate();
+        line.append(value);
+        return this;
+    }
+
+    CsvWriter field(LocalDateTime value) {
+        separate();
+        if (value != null) {
+            DATE_TIME.formatTo(value, line);
+        }
+        return this;
+    }
+
+    void header(String... columns) {
+        for (var column : columns) {
+            field(column);
+        }
+        endRow();
+    }
+
+    /* вызывается из колбэка потокового чтения, поэтому IOException оборачивается */
+    void endRow() {
+        line.append("\r\n");
+        try {
+            writer.append(line);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        line.setLength(0);
+        firstField = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    private void separate() {
+        if (!firstField) {
+            line.append(',');
+        }
+        firstField = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
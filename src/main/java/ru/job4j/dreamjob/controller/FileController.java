@@ -1,28 +1,134 @@
 package ru.job4j.dreamjob.controller;
 
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.FileMetadataDto;
 import ru.job4j.dreamjob.service.FileService;
 
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.Optional;
+
+/*
+ * HEAD и GET с If-None-Match/If-Modified-Since отвечают по строке files, не читая содержимое:
+ * ETag - SHA-256 содержимого, Last-Modified - время загрузки. Файл под одним id не меняется,
+ * поэтому проверка повторного запроса сводится к сравнению заголовков.
+ * Содержимое не читается в память: поток из хранилища копируется прямо в ответ.
+ */
 @RestController
 @RequestMapping("/files")
 public class FileController {
 
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final FileService fileService;
 
     public FileController(FileService fileService) {
         this.fileService = fileService;
     }
 
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<?> getHeadById(@PathVariable int id, WebRequest request) {
+        var metadataOptional = fileService.getMetadataById(id);
+        if (metadataOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var metadata = metadataOptional.get();
+        if (isNotModified(metadata, request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return headers(HttpStatus.OK, metadata, metadata.getSize()).build();
+    }
+
+    /* Range с одним диапазоном читается из хранилища ranged get; несколько диапазонов и неверный Range отдаются целым файлом */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getById(@PathVariable int id) {
-        var contentOptional = fileService.getFileById(id);
-        if (contentOptional.isEmpty()) {
+    public ResponseEntity<?> getById(@PathVariable int id, WebRequest request) throws IOException {
+        var metadataOptional = fileService.getMetadataById(id);
+        if (metadataOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var metadata = metadataOptional.get();
+        if (isNotModified(metadata, request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        var range = range(metadata, request);
+        if (range.isEmpty()) {
+            return body(headers(HttpStatus.OK, metadata, metadata.getSize()), fileService.getFileById(id));
+        }
+        var size = metadata.getSize();
+        var start = range.get().getRangeStart(size);
+        var end = range.get().getRangeEnd(size);
+        if (start >= size || start > end) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                    .build();
+        }
+        var length = end - start + 1;
+        var builder = headers(HttpStatus.PARTIAL_CONTENT, metadata, length)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        return body(builder, fileService.getFileById(id, start, length));
+    }
+
+    /* при 304 WebRequest сам выставляет ETag и Last-Modified в ответ */
+    private static boolean isNotModified(FileMetadataDto metadata, WebRequest request) {
+        return request.checkNotModified(etag(metadata), lastModified(metadata));
+    }
+
+    /* If-Range с другим ETag или с датой означает, что у клиента другая версия, и нужен целый файл */
+    private static Optional<HttpRange> range(FileMetadataDto metadata, WebRequest request) {
+        var header = request.getHeader(HttpHeaders.RANGE);
+        var ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (header == null || (ifRange != null && !ifRange.equals(etag(metadata)))) {
+            return Optional.empty();
+        }
+        try {
+            var ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? Optional.of(ranges.get(0)) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /* ровно InputStreamResource: такой ответ Spring пишет потоком и не пытается сам разбирать Range */
+    private static ResponseEntity<?> body(ResponseEntity.BodyBuilder builder, Optional<FileDto> fileOptional) throws IOException {
+        if (fileOptional.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(contentOptional.get().getContent());
+        return builder.body(new InputStreamResource(fileOptional.get().getContent().getInputStream()));
+    }
+
+    private static ResponseEntity.BodyBuilder headers(HttpStatus status, FileMetadataDto metadata, long length) {
+        var builder = ResponseEntity.status(status)
+                .contentLength(length)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .lastModified(lastModified(metadata))
+                .cacheControl(CACHE_CONTROL);
+        if (metadata.getContentType() != null) {
+            builder.contentType(MediaType.parseMediaType(metadata.getContentType()));
+        }
+        if (metadata.getSha256() != null) {
+            builder.eTag(etag(metadata));
+        }
+        return builder;
+    }
+
+    private static String etag(FileMetadataDto metadata) {
+        return metadata.getSha256() == null ? null : "\"" + metadata.getSha256() + "\"";
+    }
+
+    private static long lastModified(FileMetadataDto metadata) {
+        return metadata.getLastModified().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package ru.job4j.dreamjob.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.job4j.dreamjob.service.HealthService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/health")
+public class HealthController {
+
+    private final HealthService healthService;
+
+    public HealthController(HealthService healthService) {
+        this.healthService = healthService;
+    }
+
+    @GetMapping("/live")
+    public ResponseEntity<Map<String, String>> getLiveness() {
+        return toResponse(healthService.checkLiveness());
+    }
+
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, String>> getReadiness() {
+        return toResponse(healthService.checkReadiness());
+    }
+
+    private ResponseEntity<Map<String, String>> toResponse(Map<String, String> report) {
+        var status = HealthService.UP.equals(report.get(HealthService.STATUS)) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(report);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.job4j.dreamjob.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Описание полей сущности для ручной записи JSON: позволяет отдавать только запрошенные клиентом поля
+ * и писать объекты в поток по одному, не собирая всю выборку в памяти.
+ */
+final class JsonFields<T> {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    interface FieldWriter<T> {
+        void write(JsonGenerator generator, T value) throws IOException;
+    }
+
+    private final Map<String, FieldWriter<T>> fields = new LinkedHashMap<>();
+
+    JsonFields<T> add(String name, FieldWriter<T> writer) {
+        fields.put(name, writer);
+        return this;
+    }
+
+    List<String> select(String names) {
+        if (names == null || names.isBlank()) {
+            return List.copyOf(fields.keySet());
+        }
+        var selected = new ArrayList<String>();
+        for (var name : names.split(",")) {
+            var field = name.trim();
+            if (!fields.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            selected.add(field);
+        }
+        return selected;
+    }
+
+    void write(JsonGenerator generator, T value, List<String> selected) throws IOException {
+        generator.writeStartObject();
+        for (var name : selected) {
+            generator.writeFieldName(name);
+            fields.get(name).write(generator, value);
+        }
+        generator.writeEndObject();
+    }
+
+    static void writeDateTime(JsonGenerator generator, LocalDateTime value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    void writeLine(JsonGenerator generator, T value, List<String> selected) throws IOException {
+        write(generator, value, selected);
+        generator.writeRaw('\n');
+    }
+}
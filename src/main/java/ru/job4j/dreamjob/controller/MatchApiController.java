@@ -0,0 +1,82 @@
+package ru.job4j.dreamjob.controller;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import ru.job4j.dreamjob.dto.MatchDto;
+import ru.job4j.dreamjob.match.Match;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.service.CandidateService;
+import ru.job4j.dreamjob.service.MatchingService;
+import ru.job4j.dreamjob.service.VacancyService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+@ThreadSafe
+@RestController
+@RequestMapping("/api/matches")
+public class MatchApiController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final VacancyService vacancyService;
+
+    private final CandidateService candidateService;
+
+    private final MatchingService matchingService;
+
+    public MatchApiController(VacancyService vacancyService, CandidateService candidateService,
+                              MatchingService matchingService) {
+        this.vacancyService = vacancyService;
+        this.candidateService = candidateService;
+        this.matchingService = matchingService;
+    }
+
+    /* кандидаты из города вакансии, наиболее подходящие по тексту первыми */
+    @GetMapping("/vacancies/{id}/candidates")
+    public ResponseEntity<List<MatchDto>> getCandidates(@PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        checkLimit(limit);
+        var vacancyOptional = vacancyService.findById(id);
+        if (vacancyOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var matches = matchingService.findCandidates(vacancyOptional.get(), limit);
+        return ResponseEntity.ok(toDtos(matches, matchId -> candidateService.findById(matchId).map(Candidate::getName)));
+    }
+
+    @GetMapping("/candidates/{id}/vacancies")
+    public ResponseEntity<List<MatchDto>> getVacancies(@PathVariable int id, @RequestParam(defaultValue = "10") int limit) {
+        checkLimit(limit);
+        var candidateOptional = candidateService.findById(id);
+        if (candidateOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var matches = matchingService.findVacancies(candidateOptional.get(), limit);
+        return ResponseEntity.ok(toDtos(matches, matchId -> vacancyService.findById(matchId).map(Vacancy::getTitle)));
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+
+    /* записи, удалённые после поиска, пропускаются */
+    private static List<MatchDto> toDtos(List<Match> matches, IntFunction<Optional<String>> names) {
+        var dtos = new ArrayList<MatchDto>(matches.size());
+        for (var match : matches) {
+            names.apply(match.getId()).ifPresent(name -> dtos.add(new MatchDto(match.getId(), name, match.getScore())));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.job4j.dreamjob.controller;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.service.SuggestService;
+
+import java.util.List;
+
+@ThreadSafe
+@RestController
+@RequestMapping("/api/suggest")
+public class SuggestApiController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final SuggestService suggestService;
+
+    public SuggestApiController(SuggestService suggestService) {
+        this.suggestService = suggestService;
+    }
+
+    /* названия опубликованных вакансий */
+    @GetMapping("/vacancies")
+    public List<String> getTitles(@RequestParam("q") String prefix, @RequestParam(defaultValue = "10") int limit) {
+        checkLimit(limit);
+        return suggestService.suggestTitles(prefix, limit);
+    }
+
+    /* города с id, чтобы форма могла подставить cityId */
+    @GetMapping("/cities")
+    public List<City> getCities(@RequestParam("q") String prefix, @RequestParam(defaultValue = "10") int limit) {
+        checkLimit(limit);
+        return suggestService.suggestCities(prefix, limit);
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_LIMIT);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.job4j.dreamjob.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.service.VacancyService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.List;
+
+@ThreadSafe
+@RestController
+@RequestMapping("/api/vacancies")
+public class VacancyApiController {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final JsonFields<Vacancy> FIELDS = new JsonFields<Vacancy>()
+            .add("id", (generator, vacancy) -> generator.writeNumber(vacancy.getId()))
+            .add("title", (generator, vacancy) -> generator.writeString(vacancy.getTitle()))
+            .add("description", (generator, vacancy) -> generator.writeString(vacancy.getDescription()))
+            .add("creationDate", (generator, vacancy) -> JsonFields.writeDateTime(generator, vacancy.getCreationDate()))
+            .add("visible", (generator, vacancy) -> generator.writeBoolean(vacancy.getVisible()))
+            .add("cityId", (generator, vacancy) -> generator.writeNumber(vacancy.getCityId()))
+            .add("fileId", (generator, vacancy) -> generator.writeNumber(vacancy.getFileId()))
+            .add("version", (generator, vacancy) -> generator.writeNumber(vacancy.getVersion()));
+
+    private final VacancyService vacancyService;
+
+    private final JsonFactory jsonFactory;
+
+    public VacancyApiController(VacancyService vacancyService, ObjectMapper objectMapper) {
+        this.vacancyService = vacancyService;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /* вакансии отдаются построчно (NDJSON) пачками по id, следующую страницу клиент запрашивает с after = последний id */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getAll(@RequestParam(defaultValue = "0") int after,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String fields) {
+        var selected = selectFields(fields);
+        if (limit != null && limit < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must not be negative");
+        }
+        var max = limit == null ? Integer.MAX_VALUE : limit;
+        StreamingResponseBody body = outputStream -> writePages(outputStream, after, max, selected);
+        return ResponseEntity.ok().contentType(JsonFields.NDJSON).body(body);
+    }
+
+    private void writePages(OutputStream outputStream, int after, int limit, List<String> selected) throws IOException {
+        try (var generator = createGenerator(outputStream)) {
+            var lastId = after;
+            var remaining = limit;
+            while (remaining > 0) {
+                var size = Math.min(BATCH_SIZE, remaining);
+                var page = vacancyService.findPage(lastId, size);
+                for (var vacancy : page) {
+                    FIELDS.writeLine(generator, vacancy, selected);
+                    lastId = vacancy.getId();
+                }
+                generator.flush();
+                remaining -= page.size();
+                if (page.size() < size) {
+                    break;
+                }
+            }
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<String> getById(@PathVariable int id, @RequestParam(required = false) String fields) throws IOException {
+        var selected = selectFields(fields);
+        var vacancyOptional = vacancyService.findById(id);
+        if (vacancyOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        var writer = new StringWriter();
+        try (var generator = jsonFactory.createGenerator(writer)) {
+            FIELDS.write(generator, vacancyOptional.get(), selected);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(writer.toString());
+    }
+
+    private List<String> selectFields(String fields) {
+        try {
+            return FIELDS.select(fields);
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, exception.getMessage());
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream outputStream) throws IOException {
+        var generator = jsonFactory.createGenerator(outputStream);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+}
@@ -1,16 +1,25 @@
 package ru.job4j.dreamjob.controller;
 
 import net.jcip.annotations.ThreadSafe;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.model.User;
 import ru.job4j.dreamjob.service.CityService;
 import ru.job4j.dreamjob.service.VacancyService;
+import ru.job4j.dreamjob.upload.UploadValidator;
 
 import javax.servlet.http.HttpSession;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.stream.Collectors;
 
 @ThreadSafe
 @Controller
@@ -21,9 +30,12 @@ public class VacancyController {
 
     private final CityService cityService;
 
-    public VacancyController(VacancyService vacancyService, CityService cityService) {
+    private final UploadValidator uploadValidator;
+
+    public VacancyController(VacancyService vacancyService, CityService cityService, UploadValidator uploadValidator) {
         this.vacancyService = vacancyService;
         this.cityService = cityService;
+        this.uploadValidator = uploadValidator;
     }
 
     @GetMapping
@@ -32,6 +44,32 @@ public class VacancyController {
         return "vacancies/list";
     }
 
+    /* выгрузка в CSV потоком из курсора БД, фильтр по городу и дате создания (to - включительно) */
+    @GetMapping("/export.csv")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "0") int cityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        var cities = cityService.findAll().stream()
+                .collect(Collectors.toMap(City::getId, City::getName));
+        StreamingResponseBody body = outputStream -> {
+            try (var writer = new CsvWriter(outputStream)) {
+                writer.header("id", "title", "description", "creation_date", "visible", "city");
+                vacancyService.streamAll(cityId,
+                        from == null ? null : from.atStartOfDay(),
+                        to == null ? null : to.plusDays(1).atStartOfDay(),
+                        vacancy -> writer.field(vacancy.getId())
+                                .field(vacancy.getTitle())
+                                .field(vacancy.getDescription())
+                                .field(vacancy.getCreationDate())
+                                .field(vacancy.getVisible())
+                                .field(cities.get(vacancy.getCityId()))
+                                .endRow());
+            }
+        };
+        return CsvWriter.attachment("vacancies.csv", body);
+    }
+
     @GetMapping("/create")
     public String getCreationPage(Model model, HttpSession session) {
         model.addAttribute("cities", cityService.findAll());
@@ -39,9 +77,9 @@ public class VacancyController {
     }
 
     @PostMapping("/create")
-    public String create(@ModelAttribute Vacancy vacancy, @RequestParam MultipartFile file, Model model) {
+    public String create(@ModelAttribute Vacancy vacancy, @RequestParam MultipartFile file, Model model, HttpSession session) {
         try {
-            vacancyService.save(vacancy, new FileDto(file.getOriginalFilename(), file.getBytes()));
+            vacancyService.save(vacancy, readUpload(file, session));
             return "redirect:/vacancies";
         } catch (Exception exception) {
             model.addAttribute("message", exception.getMessage());
@@ -62,12 +100,16 @@ public class VacancyController {
     }
 
     @PostMapping("/update")
-    public String update(@ModelAttribute Vacancy vacancy, @RequestParam MultipartFile file, Model model) {
+    public String update(@ModelAttribute Vacancy vacancy, @RequestParam MultipartFile file, Model model, HttpSession session) {
         try {
             var isUpdated = vacancyService.update(
                     vacancy,
-                    new FileDto(file.getOriginalFilename(), file.getBytes()
-                    ));
+                    readUpload(file, session)
+            );
+            if (!isUpdated && vacancyService.findById(vacancy.getId()).isPresent()) {
+                model.addAttribute("message", "Вакансию уже изменил другой пользователь. Откройте её заново и повторите правки");
+                return "errors/404";
+            }
             if (!isUpdated) {
                 model.addAttribute("message", "Вакансия с указанным идентификатором не найдена");
                 return "errors/404";
@@ -88,4 +130,14 @@ public class VacancyController {
         }
         return "redirect:/vacancies";
     }
-}
\ No newline at end of file
+
+    /* файл записывается на вошедшего пользователя, чтобы учесть его в квоте */
+    private FileDto readUpload(MultipartFile file, HttpSession session) throws IOException {
+        var image = uploadValidator.read(file);
+        var user = (User) session.getAttribute("user");
+        if (user != null) {
+            image.setUserId(user.getId());
+        }
+        return image;
+    }
+}
@@ -1,14 +1,25 @@
 package ru.job4j.dreamjob.dto;
 
+import org.springframework.core.io.InputStreamSource;
+
 public class FileDto {
 
     private String name;
 
-    private byte[] content; /*тут кроется различие. доменная модель хранит путь, а не содержимое*/
+    /* читается потоком, целиком в памяти не держится */
+    private InputStreamSource content; /*тут кроется различие. доменная модель хранит путь, а не содержимое*/
+
+    private long size;
+
+    /* кто загружает файл: на него записывается занятое место */
+    private int userId;
+
+    private String contentType;
 
-    public FileDto(String name, byte[] content) {
+    public FileDto(String name, InputStreamSource content, long size) {
         this.name = name;
         this.content = content;
+        this.size = size;
     }
 
     public String getName() {
@@ -19,11 +30,35 @@ public class FileDto {
         this.name = name;
     }
 
-    public byte[] getContent() {
+    public InputStreamSource getContent() {
         return content;
     }
 
-    public void setContent(byte[] content) {
+    public void setContent(InputStreamSource content) {
         this.content = content;
     }
-}
\ No newline at end of file
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.job4j.dreamjob.dto;
+
+import java.time.LocalDateTime;
+
+/* всё, что нужно для заголовков ответа /files/{id}, без содержимого файла */
+public class FileMetadataDto {
+
+    private final String name;
+
+    private final long size;
+
+    /* null, пока строку не дополнил FileMetadataBackfillService */
+    private final String contentType;
+
+    private final String sha256;
+
+    private final LocalDateTime lastModified;
+
+    public FileMetadataDto(String name, long size, String contentType, String sha256, LocalDateTime lastModified) {
+        this.name = name;
+        this.size = size;
+        this.contentType = contentType;
+        this.sha256 = sha256;
+        this.lastModified = lastModified;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+}
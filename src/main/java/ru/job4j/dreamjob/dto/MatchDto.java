@@ -0,0 +1,29 @@
+package ru.job4j.dreamjob.dto;
+
+/* подобранная вакансия или кандидат: id, заголовок или имя и оценка BM25 */
+public class MatchDto {
+
+    private final int id;
+
+    private final String name;
+
+    private final double score;
+
+    public MatchDto(int id, String name, double score) {
+        this.id = id;
+        this.name = name;
+        this.score = score;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
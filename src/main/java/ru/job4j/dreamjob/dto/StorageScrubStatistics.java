@@ -0,0 +1,67 @@
+package ru.job4j.dreamjob.dto;
+
+import java.time.Instant;
+
+/* накопительные счётчики проверки хранилища с момента запуска приложения */
+public class StorageScrubStatistics {
+
+    private final long checkedRows;
+
+    private final long checkedBlobs;
+
+    private final long missingBlobs;
+
+    private final long checksumMismatches;
+
+    private final long unreferencedBlobs;
+
+    private final long deletedBlobs;
+
+    private final long completedPasses;
+
+    private final Instant lastRun;
+
+    public StorageScrubStatistics(long checkedRows, long checkedBlobs, long missingBlobs, long checksumMismatches,
+                                  long unreferencedBlobs, long deletedBlobs, long completedPasses, Instant lastRun) {
+        this.checkedRows = checkedRows;
+        this.checkedBlobs = checkedBlobs;
+        this.missingBlobs = missingBlobs;
+        this.checksumMismatches = checksumMismatches;
+        this.unreferencedBlobs = unreferencedBlobs;
+        this.deletedBlobs = deletedBlobs;
+        this.completedPasses = completedPasses;
+        this.lastRun = lastRun;
+    }
+
+    public long getCheckedRows() {
+        return checkedRows;
+    }
+
+    public long getCheckedBlobs() {
+        return checkedBlobs;
+    }
+
+    public long getMissingBlobs() {
+        return missingBlobs;
+    }
+
+    public long getChecksumMismatches() {
+        return checksumMismatches;
+    }
+
+    public long getUnreferencedBlobs() {
+        return unreferencedBlobs;
+    }
+
+    public long getDeletedBlobs() {
+        return deletedBlobs;
+    }
+
+    public long getCompletedPasses() {
+        return completedPasses;
+    }
+
+    public Instant getLastRun() {
+        return lastRun;
+    }
+}
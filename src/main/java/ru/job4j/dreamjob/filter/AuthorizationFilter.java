@@ -34,6 +34,8 @@ public class AuthorizationFilter extends HttpFilter {
         return uri.startsWith("/users/register")
                 || uri.startsWith("/users/login")
                 || uri.startsWith("/js")
-                || uri.startsWith("/css");
+                || uri.startsWith("/css")
+                || uri.startsWith("/umd")
+                || uri.startsWith("/health");
     }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+package ru.job4j.dreamjob.filter;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.job4j.dreamjob.cache.BoundedCache;
+import ru.job4j.dreamjob.cache.CacheStatistics;
+import ru.job4j.dreamjob.cache.CacheStatisticsProvider;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.service.CandidateService;
+import ru.job4j.dreamjob.service.VacancyService;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Отдает списки вакансий и кандидатов из кэша уже отрисованных страниц.
+ * Ключом служит версия данных из сервиса и пользователь, для которого отрисована шапка,
+ * поэтому любая запись делает старые страницы недостижимыми без явной очистки.
+ * Версия считается с нуля после каждого запуска и на каждом узле своя, поэтому в ETag
+ * добавляется случайный id запуска: иначе тот же тег после перезапуска или с другого узла
+ * означал бы другие данные, и клиент получил бы 304 на изменившийся список.
+ */
+@ThreadSafe
+@Component
+@Order(3)
+public class RenderedPageCacheFilter extends HttpFilter implements CacheStatisticsProvider {
+
+    private final String instanceId = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, Character.MAX_RADIX);
+
+    private final Map<String, LongSupplier> versions;
+
+    private final BoundedCache<String, RenderedPage> pages;
+
+    public RenderedPageCacheFilter(VacancyService vacancyService, CandidateService candidateService,
+                                   @Value("${cache.page.max-size}") int maxSize,
+                                   @Value("${cache.page.ttl}") Duration ttl) {
+        this.versions = Map.of(
+                "/vacancies", vacancyService::getVersion,
+                "/candidates", candidateService::getVersion
+        );
+        this.pages = new BoundedCache<>(maxSize, ttl);
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+        var version = "GET".equals(request.getMethod()) ? versions.get(request.getRequestURI()) : null;
+        if (version == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        var tag = instanceId + "-" + version.getAsLong() + "-" + getUserId(request);
+        var key = request.getRequestURI() + ":" + tag;
+        var etag = "W/\"" + tag + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        var page = pages.getIfPresent(key);
+        if (page != null) {
+            response.setContentType(page.contentType);
+            response.setContentLength(page.body.length);
+            response.getOutputStream().write(page.body);
+            return;
+        }
+        var wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            pages.put(key, new RenderedPage(wrapper.getContentType(), wrapper.getContentAsByteArray()));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private int getUserId(HttpServletRequest request) {
+        var user = (User) request.getAttribute("user");
+        return user == null ? 0 : user.getId();
+    }
+
+    @Override
+    public String getCacheName() {
+        return "pages";
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return pages.getStatistics();
+    }
+
+    private static final class RenderedPage {
+
+        private final String contentType;
+
+        private final byte[] body;
+
+        private RenderedPage(String contentType, byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
@@ -18,6 +18,11 @@ public class SessionFilter extends HttpFilter {
 
     @Override
     protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+        /* пробы оркестратора приходят без cookie, и сессия на каждую из них только копилась бы в памяти */
+        if (request.getRequestURI().startsWith("/health")) {
+            chain.doFilter(request, response);
+            return;
+        }
         var session = request.getSession();
         addUserToSession(session, request);
         chain.doFilter(request, response);
@@ -0,0 +1,177 @@
+package ru.job4j.dreamjob.jdbc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * Обёртка над пулом, которая замеряет подготовленные запросы и передаёт результат в QueryStatisticsCollector.
+ * Время ожидания соединения из пула относится к первому запросу на этом соединении,
+ * время запроса - это время вызовов execute*, строки - прочитанные из ResultSet или изменённые запросом.
+ * Запрос учитывается при закрытии его PreparedStatement.
+ */
+public class ProfilingDataSource implements DataSource {
+
+    private final DataSource dataSource;
+
+    private final QueryStatisticsCollector collector;
+
+    public ProfilingDataSource(DataSource dataSource, QueryStatisticsCollector collector) {
+        this.dataSource = dataSource;
+        this.collector = collector;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        var start = System.nanoTime();
+        var connection = dataSource.getConnection();
+        return wrap(connection, System.nanoTime() - start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        var start = System.nanoTime();
+        var connection = dataSource.getConnection(username, password);
+        return wrap(connection, System.nanoTime() - start);
+    }
+
+    private Connection wrap(Connection connection, long waitNanos) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {Connection.class}, new ConnectionHandler(connection, waitNanos));
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        return type.isInstance(dataSource) ? type.cast(dataSource) : dataSource.unwrap(type);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) throws SQLException {
+        return type.isInstance(dataSource) || dataSource.isWrapperFor(type);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private long pendingWaitNanos;
+
+        private ConnectionHandler(Connection connection, long waitNanos) {
+            this.connection = connection;
+            this.pendingWaitNanos = waitNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var result = ProfilingDataSource.invoke(connection, method, args);
+            if (!method.getName().startsWith("prepare")) {
+                return result;
+            }
+            var handler = new StatementHandler(result, (String) args[0], pendingWaitNanos);
+            pendingWaitNanos = 0;
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {method.getReturnType()}, handler);
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Object statement;
+
+        private final String sql;
+
+        private final long connectionWaitNanos;
+
+        private long executions;
+
+        private long executionNanos;
+
+        private long rows;
+
+        private boolean recorded;
+
+        private StatementHandler(Object statement, String sql, long connectionWaitNanos) {
+            this.statement = statement;
+            this.sql = sql;
+            this.connectionWaitNanos = connectionWaitNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var name = method.getName();
+            if (name.startsWith("execute")) {
+                var start = System.nanoTime();
+                var result = ProfilingDataSource.invoke(statement, method, args);
+                executionNanos += System.nanoTime() - start;
+                executions++;
+                if (result instanceof Integer affected) {
+                    rows += Math.max(affected, 0);
+                } else if (result instanceof Long affected) {
+                    rows += Math.max(affected, 0);
+                }
+                return result instanceof ResultSet resultSet ? count(resultSet) : result;
+            }
+            if ("getResultSet".equals(name)) {
+                var result = (ResultSet) ProfilingDataSource.invoke(statement, method, args);
+                return result == null ? null : count(result);
+            }
+            if ("close".equals(name) && executions > 0 && !recorded) {
+                recorded = true;
+                collector.record(sql, executions, executionNanos, rows, connectionWaitNanos);
+            }
+            return ProfilingDataSource.invoke(statement, method, args);
+        }
+
+        /* считает строки, не замеряя каждый next(): на длинных выборках это заметно */
+        private ResultSet count(ResultSet resultSet) {
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {ResultSet.class},
+                    (proxy, method, args) -> {
+                        var result = ProfilingDataSource.invoke(resultSet, method, args);
+                        if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                            rows++;
+                        }
+                        return result;
+                    });
+        }
+    }
+}
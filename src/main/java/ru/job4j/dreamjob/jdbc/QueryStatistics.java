@@ -0,0 +1,53 @@
+package ru.job4j.dreamjob.jdbc;
+
+public class QueryStatistics {
+
+    private final String sql;
+
+    private final long calls;
+
+    private final long rows;
+
+    private final long totalMillis;
+
+    private final long maxMillis;
+
+    private final long connectionWaitMillis;
+
+    public QueryStatistics(String sql, long calls, long rows, long totalMillis, long maxMillis, long connectionWaitMillis) {
+        this.sql = sql;
+        this.calls = calls;
+        this.rows = rows;
+        this.totalMillis = totalMillis;
+        this.maxMillis = maxMillis;
+        this.connectionWaitMillis = connectionWaitMillis;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getConnectionWaitMillis() {
+        return connectionWaitMillis;
+    }
+
+    public double getAverageMillis() {
+        return calls == 0 ? 0 : (double) totalMillis / calls;
+    }
+}
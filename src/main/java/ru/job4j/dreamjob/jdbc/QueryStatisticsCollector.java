@@ -0,0 +1,94 @@
+package ru.job4j.dreamjob.jdbc;
+
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Копит статистику по формам запросов: SQL с плейсхолдерами, каким его видит драйвер.
+ * Запросы дольше query.slow-threshold пишутся в лог. Число разных форм ограничено
+ * query.statistics.max-shapes, остальные складываются в одну строку OTHER.
+ */
+@ThreadSafe
+@Component
+public class QueryStatisticsCollector {
+
+    static final String OTHER = "(other)";
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryStatisticsCollector.class.getName());
+
+    private final long slowThresholdNanos;
+
+    private final int maxShapes;
+
+    private final Map<String, Aggregate> shapes = new ConcurrentHashMap<>();
+
+    public QueryStatisticsCollector(@Value("${query.slow-threshold}") Duration slowThreshold,
+                                    @Value("${query.statistics.max-shapes}") int maxShapes) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.maxShapes = maxShapes;
+    }
+
+    void record(String sql, long executions, long executionNanos, long rows, long connectionWaitNanos) {
+        var key = shapes.containsKey(sql) || shapes.size() < maxShapes ? sql : OTHER;
+        shapes.computeIfAbsent(key, k -> new Aggregate()).add(executions, executionNanos, rows, connectionWaitNanos);
+        if (executionNanos >= slowThresholdNanos) {
+            LOG.warn("Slow query: {} ms, {} rows, {} ms waiting for connection: {}",
+                    TimeUnit.NANOSECONDS.toMillis(executionNanos), rows,
+                    TimeUnit.NANOSECONDS.toMillis(connectionWaitNanos), normalize(sql));
+        }
+    }
+
+    /* формы запросов по убыванию суммарного времени */
+    public List<QueryStatistics> getTop(int limit) {
+        return shapes.entrySet().stream()
+                .map(entry -> entry.getValue().toStatistics(normalize(entry.getKey())))
+                .sorted(Comparator.comparingLong(QueryStatistics::getTotalMillis).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /* текстовые блоки репозиториев многострочные, для вывода они сворачиваются в одну строку */
+    private static String normalize(String sql) {
+        return sql.strip().replaceAll("\\s+", " ");
+    }
+
+    private static final class Aggregate {
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAdder connectionWaitNanos = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void add(long executions, long executionNanos, long rowCount, long waitNanos) {
+            calls.add(executions);
+            rows.add(rowCount);
+            totalNanos.add(executionNanos);
+            connectionWaitNanos.add(waitNanos);
+            maxNanos.accumulateAndGet(executionNanos, Math::max);
+        }
+
+        private QueryStatistics toStatistics(String sql) {
+            return new QueryStatistics(sql, calls.sum(), rows.sum(),
+                    TimeUnit.NANOSECONDS.toMillis(totalNanos.sum()),
+                    TimeUnit.NANOSECONDS.toMillis(maxNanos.get()),
+                    TimeUnit.NANOSECONDS.toMillis(connectionWaitNanos.sum()));
+        }
+    }
+}
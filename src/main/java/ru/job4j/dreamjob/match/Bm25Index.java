@@ -0,0 +1,215 @@
+package ru.job4j.dreamjob.match;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Инвертированный индекс с ранжированием BM25. Документы разложены по шардам по id,
+ * у каждого шарда свой замок, поэтому запись одного документа не останавливает поиск в остальных.
+ * Статистика всего индекса (число документов, средняя длина, документная частота слов) собирается
+ * по шардам перед подсчётом оценок, затем каждый шард выбирает свои лучшие limit документов.
+ * Начиная с parallelThreshold документов шарды обходятся параллельно в общем ForkJoinPool.
+ */
+@ThreadSafe
+public class Bm25Index {
+
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private final Shard[] shards;
+
+    private final int parallelThreshold;
+
+    public Bm25Index(int shardCount, int parallelThreshold) {
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /* заменяет прежнюю версию документа, если она была */
+    public void put(int id, int cityId, List<String> tokens) {
+        var terms = new HashMap<String, Integer>();
+        for (var token : tokens) {
+            terms.merge(token, 1, Integer::sum);
+        }
+        var shard = shard(id);
+        shard.lock.writeLock().lock();
+        try {
+            shard.remove(id);
+            shard.add(id, new Document(cityId, tokens.size(), terms));
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        var shard = shard(id);
+        shard.lock.writeLock().lock();
+        try {
+            shard.remove(id);
+        } finally {
+            shard.lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        var size = 0;
+        for (var shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                size += shard.documents.size();
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    /* cityId 0 - без отбора по городу */
+    public List<Match> search(Collection<String> query, int cityId, int limit) {
+        var terms = List.copyOf(new LinkedHashSet<>(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        var documentFrequency = new long[terms.size()];
+        long documentCount = 0;
+        long totalLength = 0;
+        for (var shard : shards) {
+            shard.lock.readLock().lock();
+            try {
+                documentCount += shard.documents.size();
+                totalLength += shard.totalLength;
+                for (int i = 0; i < terms.size(); i++) {
+                    var postings = shard.postings.get(terms.get(i));
+                    documentFrequency[i] += postings == null ? 0 : postings.size();
+                }
+            } finally {
+                shard.lock.readLock().unlock();
+            }
+        }
+        if (documentCount == 0) {
+            return List.of();
+        }
+        var idf = new double[terms.size()];
+        for (int i = 0; i < terms.size(); i++) {
+            idf[i] = Math.log(1 + (documentCount - documentFrequency[i] + 0.5) / (documentFrequency[i] + 0.5));
+        }
+        var averageLength = Math.max(1.0, (double) totalLength / documentCount);
+        var shardIndexes = IntStream.range(0, shards.length);
+        if (documentCount >= parallelThreshold) {
+            shardIndexes = shardIndexes.parallel();
+        }
+        var best = new PriorityQueue<>(Match.ORDER.reversed());
+        shardIndexes.mapToObj(i -> shards[i].search(terms, idf, averageLength, cityId, limit))
+                .toList()
+                .forEach(matches -> matches.forEach(match -> offer(best, match, limit)));
+        var result = new ArrayList<>(best);
+        result.sort(Match.ORDER);
+        return result;
+    }
+
+    private Shard shard(int id) {
+        return shards[Math.floorMod(id, shards.length)];
+    }
+
+    /* в куче лежат limit лучших, в голове - худший из них */
+    private static void offer(PriorityQueue<Match> best, Match match, int limit) {
+        best.offer(match);
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    private static final class Document {
+
+        private final int cityId;
+
+        private final int length;
+
+        private final Map<String, Integer> terms;
+
+        private Document(int cityId, int length, Map<String, Integer> terms) {
+            this.cityId = cityId;
+            this.length = length;
+            this.terms = terms;
+        }
+    }
+
+    private static final class Shard {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        @GuardedBy("lock")
+        private final Map<Integer, Document> documents = new HashMap<>();
+
+        /* слово -> id документа -> сколько раз слово в нём встречается */
+        @GuardedBy("lock")
+        private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+
+        @GuardedBy("lock")
+        private long totalLength;
+
+        private void add(int id, Document document) {
+            documents.put(id, document);
+            totalLength += document.length;
+            document.terms.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new HashMap<>()).put(id, frequency));
+        }
+
+        private void remove(int id) {
+            var document = documents.remove(id);
+            if (document == null) {
+                return;
+            }
+            totalLength -= document.length;
+            for (var term : document.terms.keySet()) {
+                var termPostings = postings.get(term);
+                termPostings.remove(id);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        private List<Match> search(List<String> terms, double[] idf, double averageLength, int cityId, int limit) {
+            lock.readLock().lock();
+            try {
+                var scores = new HashMap<Integer, Double>();
+                for (int i = 0; i < terms.size(); i++) {
+                    var termPostings = postings.get(terms.get(i));
+                    if (termPostings == null) {
+                        continue;
+                    }
+                    for (var posting : termPostings.entrySet()) {
+                        var document = documents.get(posting.getKey());
+                        if (cityId != 0 && document.cityId != cityId) {
+                            continue;
+                        }
+                        double frequency = posting.getValue();
+                        var norm = K1 * (1 - B + B * document.length / averageLength);
+                        scores.merge(posting.getKey(), idf[i] * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                    }
+                }
+                var best = new PriorityQueue<>(Match.ORDER.reversed());
+                scores.forEach((id, score) -> offer(best, new Match(id, score), limit));
+                return new ArrayList<>(best);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.job4j.dreamjob.match;
+
+import java.util.Comparator;
+
+public class Match {
+
+    /* лучшие совпадения первыми, при равной оценке - меньший id */
+    public static final Comparator<Match> ORDER = Comparator.comparingDouble(Match::getScore).reversed()
+            .thenComparingInt(Match::getId);
+
+    private final int id;
+
+    private final double score;
+
+    public Match(int id, double score) {
+        this.id = id;
+        this.score = score;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
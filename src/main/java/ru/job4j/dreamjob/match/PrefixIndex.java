@@ -0,0 +1,130 @@
+package ru.job4j.dreamjob.match;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Подсказки по началу строки или любого её слова. Каждая строка попадает в отсортированный
+ * ConcurrentSkipListMap под ключами "суффикс с начала слова + \0 + вся строка" в нормализованном виде,
+ * поэтому поиск - это спуск к префиксу и обход соседних ключей без блокировок.
+ * Одинаковые после нормализации строки хранятся один раз со счётчиком повторов,
+ * строка пропадает из подсказок, когда удалён последний её повтор.
+ */
+@ThreadSafe
+public class PrefixIndex {
+
+    private static final char SEPARATOR = '\0';
+
+    private static final String LATIN_KEYS = "qwertyuiop[]asdfghjkl;'zxcvbnm,.`";
+
+    private static final String CYRILLIC_KEYS = "йцукенгшщзхъфывапролджэячсмитьбюё";
+
+    /* ключ -> строка в исходном написании и число повторов; значения не меняются на месте */
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+
+    public synchronized void add(String text) {
+        var normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        for (var key : keys(normalized)) {
+            var entry = entries.get(key);
+            entries.put(key, entry == null ? new Entry(text.strip(), 1) : new Entry(entry.text, entry.count + 1));
+        }
+    }
+
+    public synchronized void remove(String text) {
+        var normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        for (var key : keys(normalized)) {
+            var entry = entries.get(key);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.count == 1) {
+                entries.remove(key);
+            } else {
+                entries.put(key, new Entry(entry.text, entry.count - 1));
+            }
+        }
+    }
+
+    /* строки в исходном написании без повторов, по алфавиту совпавшего слова */
+    public List<String> find(String prefix, int limit) {
+        var normalized = normalize(prefix);
+        var result = new ArrayList<String>();
+        if (normalized.isEmpty() || limit <= 0) {
+            return result;
+        }
+        var seen = new HashSet<String>();
+        for (var entry : entries.subMap(normalized, normalized + Character.MAX_VALUE).entrySet()) {
+            var key = entry.getKey();
+            if (seen.add(key.substring(key.indexOf(SEPARATOR) + 1))) {
+                result.add(entry.getValue().text);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /* нижний регистр, ё как е, любые разделители - один пробел; в отличие от Tokenizer однобуквенные слова остаются */
+    public static String normalize(String text) {
+        var normalized = new StringBuilder();
+        var isSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            var c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (isSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Tokenizer.normalize(c));
+                isSpace = false;
+            } else {
+                isSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    /* текст, набранный латиницей при включённой русской раскладке: "ghjuhfvvbcn" -> "программист" */
+    public static String toCyrillicLayout(String text) {
+        var converted = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            var c = Character.toLowerCase(text.charAt(i));
+            var index = LATIN_KEYS.indexOf(c);
+            converted.append(index < 0 ? c : CYRILLIC_KEYS.charAt(index));
+        }
+        return converted.toString();
+    }
+
+    private static List<String> keys(String normalized) {
+        var keys = new ArrayList<String>();
+        var start = 0;
+        while (start >= 0) {
+            keys.add(normalized.substring(start) + SEPARATOR + normalized);
+            var space = normalized.indexOf(' ', start);
+            start = space < 0 ? -1 : space + 1;
+        }
+        return keys;
+    }
+
+    private static final class Entry {
+
+        private final String text;
+
+        private final int count;
+
+        private Entry(String text, int count) {
+            this.text = text;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ru.job4j.dreamjob.match;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* слова текста в нижнем регистре; ё приводится к е, однобуквенные слова отбрасываются */
+public final class Tokenizer {
+
+    private static final int MIN_LENGTH = 2;
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String... texts) {
+        var tokens = new ArrayList<String>();
+        var token = new StringBuilder();
+        for (var text : texts) {
+            if (text == null) {
+                continue;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                var c = text.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    token.append(normalize(c));
+                } else {
+                    flush(token, tokens);
+                }
+            }
+            flush(token, tokens);
+        }
+        return tokens;
+    }
+
+    public static char normalize(char c) {
+        var lower = Character.toLowerCase(c);
+        return lower == 'ё' ? 'е' : lower;
+    }
+
+    private static void flush(StringBuilder token, List<String> tokens) {
+        if (token.length() >= MIN_LENGTH) {
+            tokens.add(token.toString());
+        }
+        token.setLength(0);
+    }
+}
@@ -12,7 +12,8 @@ public class Candidate {
             "description", "description",
             "creation_date", "creationDate",
             "city_id", "cityId",
-            "file_id", "fileId"
+            "file_id", "fileId",
+            "version", "version"
     );
 
     private int id;
@@ -27,6 +28,9 @@ public class Candidate {
 
     private int fileId;
 
+    /* увеличивается при каждом изменении, по нему обнаруживаются конкурентные правки */
+    private int version;
+
     public Candidate() {
     }
 
@@ -90,6 +94,14 @@ public class Candidate {
         this.fileId = fileId;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
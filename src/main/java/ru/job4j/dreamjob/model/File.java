@@ -1,5 +1,6 @@
 package ru.job4j.dreamjob.model;
 
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 public class File {
@@ -10,6 +11,18 @@ public class File {
 
     private String path;
 
+    /* 0 - владелец неизвестен: файл загружен до учёта квот */
+    private int userId;
+
+    private long size;
+
+    /* null у строк, которые ещё не обработал FileMetadataBackfillService */
+    private String contentType;
+
+    private String sha256;
+
+    private LocalDateTime createdAt;
+
     public File(String name, String path) {
         this.name = name;
         this.path = path;
@@ -39,6 +52,46 @@ public class File {
         this.path = path;
     }
 
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
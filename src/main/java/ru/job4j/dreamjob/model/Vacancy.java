@@ -13,7 +13,8 @@ public class Vacancy {
             "creation_date", "creationDate",
             "visible", "visible",
             "city_id", "cityId",
-            "file_id", "fileId"
+            "file_id", "fileId",
+            "version", "version"
     );
 
     private int id;
@@ -30,6 +31,9 @@ public class Vacancy {
 
     private int fileId;
 
+    /* увеличивается при каждом изменении, по нему обнаруживаются конкурентные правки */
+    private int version;
+
     public Vacancy() {
     }
 
@@ -102,6 +106,14 @@ public class Vacancy {
         this.fileId = fileId;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,59 @@
+package ru.job4j.dreamjob.persistence;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/* Кодирование полей в записях журнала: строки как длина + UTF-8, null - длина -1 */
+public final class Records {
+
+    /* типы записей: сущность целиком, удаление по id, следующий id (пишется в начало снимка) */
+    public static final byte PUT = 1;
+
+    public static final byte REMOVE = 2;
+
+    public static final byte SEQUENCE = 3;
+
+    private Records() {
+    }
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer in) {
+        var length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        var bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toLocalDate().toEpochDay());
+            out.writeLong(value.toLocalTime().toNanoOfDay());
+        }
+    }
+
+    public static LocalDateTime readDateTime(ByteBuffer in) {
+        if (in.get() == 0) {
+            return null;
+        }
+        var date = LocalDate.ofEpochDay(in.getLong());
+        return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.getLong()));
+    }
+}
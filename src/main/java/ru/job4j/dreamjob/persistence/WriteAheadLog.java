@@ -0,0 +1,213 @@
+package ru.job4j.dreamjob.persistence;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал изменений одного репозитория в памяти: файл name.wal и сжатый снимок name.snapshot.
+ * Изменение попадает в память только после того, как его запись дописана в журнал (и сброшена на диск при fsync).
+ * Каждая запись хранится как [длина][данные][CRC32 данных], содержимое записей определяет репозиторий.
+ * При старте снимок и журнал читаются через отображение в память, оборванный при сбое хвост журнала
+ * отбрасывается. Когда в журнале накапливается compactAfter записей, состояние репозитория
+ * записывается в новый снимок, а журнал очищается.
+ */
+@ThreadSafe
+public class WriteAheadLog implements Closeable {
+
+    /* Пишет одну запись журнала */
+    public interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteAheadLog.class.getName());
+
+    private static final int FRAME_OVERHEAD = Integer.BYTES * 2;
+
+    private final Path logPath;
+
+    private final Path snapshotPath;
+
+    private final boolean fsync;
+
+    private final int compactAfter;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    @GuardedBy("this")
+    private FileChannel channel;
+
+    @GuardedBy("this")
+    private Supplier<? extends Collection<? extends RecordWriter>> snapshotSource;
+
+    @GuardedBy("this")
+    private int records;
+
+    public WriteAheadLog(Path directory, String name, boolean fsync, int compactAfter) {
+        this.logPath = directory.resolve(name + ".wal");
+        this.snapshotPath = directory.resolve(name + ".snapshot");
+        this.fsync = fsync;
+        this.compactAfter = compactAfter;
+    }
+
+    /**
+     * Проигрывает снимок и журнал в replay и открывает журнал на дозапись.
+     * snapshotSource при сжатии возвращает записи, из которых заново собирается всё текущее состояние.
+     */
+    public synchronized void open(Consumer<ByteBuffer> replay,
+                                  Supplier<? extends Collection<? extends RecordWriter>> snapshotSource) {
+        try {
+            Files.createDirectories(logPath.getParent());
+            if (Files.exists(snapshotPath)) {
+                var end = readRecords(snapshotPath, replay);
+                if (end != Files.size(snapshotPath)) {
+                    throw new IllegalStateException("Snapshot is corrupted: " + snapshotPath);
+                }
+            }
+            channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            var end = readRecords(logPath, record -> {
+                replay.accept(record);
+                records++;
+            });
+            if (end < channel.size()) {
+                channel.truncate(end);
+            }
+            channel.position(end);
+            this.snapshotSource = snapshotSource;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Если condition выполняется, дописывает record в журнал и только после этого применяет mutation.
+     * Всё происходит под одной блокировкой: между проверкой и изменением никто не вмешается,
+     * порядок записей в журнале совпадает с порядком изменений, а снимок не может разойтись с журналом.
+     * Если record не удалось записать (например, закончилось место на диске), изменение не применяется,
+     * а недописанный хвост журнала обрезается.
+     */
+    public synchronized boolean write(BooleanSupplier condition, RecordWriter record, Runnable mutation) {
+        if (!condition.getAsBoolean()) {
+            return false;
+        }
+        append(record);
+        mutation.run();
+        if (++records >= compactAfter) {
+            /* изменение уже в журнале, поэтому сбой сжатия не отменяет записи: попробуем снова на следующей */
+            try {
+                compact();
+            } catch (IOException e) {
+                LOG.warn("Compaction of {} failed, will retry", logPath, e);
+            }
+        }
+        return true;
+    }
+
+    private void append(RecordWriter record) {
+        long position = -1;
+        try {
+            var frame = frame(record);
+            position = channel.position();
+            channel.write(frame);
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            if (position >= 0) {
+                discardTail(position, e);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void discardTail(long position, IOException cause) {
+        try {
+            channel.truncate(position);
+            channel.position(position);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    public synchronized void compact() throws IOException {
+        var temporary = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (var snapshot = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (var record : snapshotSource.get()) {
+                snapshot.write(frame(record));
+            }
+            snapshot.force(true);
+        }
+        Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        /* сбой между подменой снимка и очисткой журнала не страшен: записи журнала идемпотентны */
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        records = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private ByteBuffer frame(RecordWriter record) throws IOException {
+        buffer.reset();
+        out.writeInt(0);
+        record.write(out);
+        out.writeInt(0);
+        var frame = ByteBuffer.wrap(buffer.toByteArray());
+        var length = frame.capacity() - FRAME_OVERHEAD;
+        var crc = new CRC32();
+        crc.update(frame.array(), Integer.BYTES, length);
+        frame.putInt(0, length);
+        frame.putInt(Integer.BYTES + length, (int) crc.getValue());
+        return frame;
+    }
+
+    /* возвращает позицию конца последней целой записи */
+    private static long readRecords(Path path, Consumer<ByteBuffer> replay) throws IOException {
+        try (var file = FileChannel.open(path, StandardOpenOption.READ)) {
+            var mapped = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            var crc = new CRC32();
+            while (mapped.remaining() >= FRAME_OVERHEAD) {
+                var start = mapped.position();
+                var length = mapped.getInt();
+                if (length < 0 || mapped.remaining() < length + Integer.BYTES) {
+                    return start;
+                }
+                var record = mapped.slice(mapped.position(), length);
+                crc.reset();
+                crc.update(record.duplicate());
+                if ((int) crc.getValue() != mapped.getInt(mapped.position() + length)) {
+                    return start;
+                }
+                replay.accept(record);
+                mapped.position(mapped.position() + length + Integer.BYTES);
+            }
+            return mapped.position();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.job4j.dreamjob.repository;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.cache.BoundedCache;
+import ru.job4j.dreamjob.cache.CacheStatistics;
+import ru.job4j.dreamjob.cache.CacheStatisticsProvider;
+import ru.job4j.dreamjob.model.Candidate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@ThreadSafe
+@Repository
+public class CachingCandidateRepository implements CandidateRepository, CacheStatisticsProvider {
+
+    private final CandidateRepository candidateRepository;
+
+    private final BoundedCache<Integer, Optional<Candidate>> cache;
+
+    public CachingCandidateRepository(CandidateRepository sql2oCandidateRepository,
+                                      @Value("${cache.entity.max-size}") int maxSize,
+                                      @Value("${cache.entity.ttl}") Duration ttl) {
+        this.candidateRepository = sql2oCandidateRepository;
+        this.cache = new BoundedCache<>(maxSize, ttl);
+    }
+
+    @Override
+    public Candidate save(Candidate candidate) {
+        var saved = candidateRepository.save(candidate);
+        cache.invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return candidateRepository.deleteById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean update(Candidate candidate) {
+        try {
+            return candidateRepository.update(candidate);
+        } finally {
+            cache.invalidate(candidate.getId());
+        }
+    }
+
+    @Override
+    public Optional<Candidate> findById(int id) {
+        return cache.get(id, candidateRepository::findById);
+    }
+
+    @Override
+    public Collection<Candidate> findAll() {
+        return candidateRepository.findAll();
+    }
+
+    @Override
+    public Collection<Candidate> findPage(int afterId, int limit) {
+        return candidateRepository.findPage(afterId, limit);
+    }
+
+    @Override
+    public int purgeDeleted(LocalDateTime before, int limit) {
+        return candidateRepository.purgeDeleted(before, limit);
+    }
+
+    @Override
+    public void streamAll(Consumer<Candidate> action) {
+        candidateRepository.streamAll(action);
+    }
+
+    @Override
+    public void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Candidate> action) {
+        candidateRepository.streamAll(cityId, from, to, action);
+    }
+
+    @Override
+    public String getCacheName() {
+        return "candidates";
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+}
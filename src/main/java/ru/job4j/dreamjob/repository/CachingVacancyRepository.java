@@ -0,0 +1,96 @@
+package ru.job4j.dreamjob.repository;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import ru.job4j.dreamjob.cache.BoundedCache;
+import ru.job4j.dreamjob.cache.CacheStatistics;
+import ru.job4j.dreamjob.cache.CacheStatisticsProvider;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@ThreadSafe
+@Repository
+public class CachingVacancyRepository implements VacancyRepository, CacheStatisticsProvider {
+
+    private final VacancyRepository vacancyRepository;
+
+    private final BoundedCache<Integer, Optional<Vacancy>> cache;
+
+    public CachingVacancyRepository(VacancyRepository sql2oVacancyRepository,
+                                    @Value("${cache.entity.max-size}") int maxSize,
+                                    @Value("${cache.entity.ttl}") Duration ttl) {
+        this.vacancyRepository = sql2oVacancyRepository;
+        this.cache = new BoundedCache<>(maxSize, ttl);
+    }
+
+    @Override
+    public Vacancy save(Vacancy vacancy) {
+        var saved = vacancyRepository.save(vacancy);
+        cache.invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public boolean deleteById(int id) {
+        try {
+            return vacancyRepository.deleteById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean update(Vacancy vacancy) {
+        try {
+            return vacancyRepository.update(vacancy);
+        } finally {
+            cache.invalidate(vacancy.getId());
+        }
+    }
+
+    @Override
+    public Optional<Vacancy> findById(int id) {
+        return cache.get(id, vacancyRepository::findById);
+    }
+
+    @Override
+    public Collection<Vacancy> findAll() {
+        return vacancyRepository.findAll();
+    }
+
+    @Override
+    public Collection<Vacancy> findPage(int afterId, int limit) {
+        return vacancyRepository.findPage(afterId, limit);
+    }
+
+    @Override
+    public int purgeDeleted(LocalDateTime before, int limit) {
+        return vacancyRepository.purgeDeleted(before, limit);
+    }
+
+    @Override
+    public void streamAll(Consumer<Vacancy> action) {
+        vacancyRepository.streamAll(action);
+    }
+
+    @Override
+    public void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Vacancy> action) {
+        vacancyRepository.streamAll(cityId, from, to, action);
+    }
+
+    @Override
+    public String getCacheName() {
+        return "vacancies";
+    }
+
+    @Override
+    public CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+}
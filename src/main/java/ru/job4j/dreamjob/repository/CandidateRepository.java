@@ -2,18 +2,31 @@ package ru.job4j.dreamjob.repository;
 
 import ru.job4j.dreamjob.model.Candidate;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CandidateRepository {
 
     Candidate save(Candidate candidate);
 
+    /* помечает запись удалённой, окончательно её удаляет purgeDeleted */
     boolean deleteById(int id);
 
+    /* false - записи нет или её version уже изменилась; при успехе version у candidate увеличивается */
     boolean update(Candidate candidate);
 
     Optional<Candidate> findById(int id);
 
     Collection<Candidate> findAll();
+
+    Collection<Candidate> findPage(int afterId, int limit);
+
+    int purgeDeleted(LocalDateTime before, int limit);
+
+    void streamAll(Consumer<Candidate> action);
+
+    /* cityId = 0 - любой город; from включительно, to не включительно, null - без границы */
+    void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Candidate> action);
 }
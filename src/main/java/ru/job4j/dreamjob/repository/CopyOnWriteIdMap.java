@@ -0,0 +1,117 @@
+package ru.job4j.dreamjob.repository;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Хранилище id -> сущность для репозиториев в памяти.
+ * Данные лежат в неизменяемом снимке из двух параллельных массивов, отсортированных по id:
+ * int[] ключей и массива значений. Чтение берёт текущий снимок без блокировок и копирования,
+ * запись собирает новый снимок и подменяет его через compareAndSet.
+ */
+@ThreadSafe
+final class CopyOnWriteIdMap<T> {
+
+    private static final Snapshot EMPTY = new Snapshot(new int[0], new Object[0]);
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(EMPTY);
+
+    Optional<T> get(int id) {
+        var current = snapshot.get();
+        var index = Arrays.binarySearch(current.ids, id);
+        return index < 0 ? Optional.empty() : Optional.of(current.value(index));
+    }
+
+    /* неизменяемое представление снимка, упорядоченное по id */
+    List<T> values() {
+        return snapshot.get().list(0, Integer.MAX_VALUE);
+    }
+
+    List<T> valuesAfter(int afterId, int limit) {
+        var current = snapshot.get();
+        var index = Arrays.binarySearch(current.ids, afterId);
+        var from = index < 0 ? -index - 1 : index + 1;
+        return current.list(from, limit);
+    }
+
+    void put(int id, T value) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            var index = Arrays.binarySearch(current.ids, id);
+            next = index >= 0 ? current.set(index, value) : current.insert(-index - 1, id, value);
+        } while (!snapshot.compareAndSet(current, next));
+    }
+
+    boolean remove(int id) {
+        Snapshot current;
+        Snapshot next;
+        do {
+            current = snapshot.get();
+            var index = Arrays.binarySearch(current.ids, id);
+            if (index < 0) {
+                return false;
+            }
+            next = current.delete(index);
+        } while (!snapshot.compareAndSet(current, next));
+        return true;
+    }
+
+    private static final class Snapshot {
+
+        private final int[] ids;
+
+        private final Object[] values;
+
+        private Snapshot(int[] ids, Object[] values) {
+            this.ids = ids;
+            this.values = values;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> T value(int index) {
+            return (T) values[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> List<T> list(int from, int limit) {
+            var to = (int) Math.min(values.length, (long) from + limit);
+            var view = (List<T>) Arrays.asList(values);
+            return Collections.unmodifiableList(from == 0 && to == values.length ? view : view.subList(from, to));
+        }
+
+        private Snapshot set(int index, Object value) {
+            var nextValues = values.clone();
+            nextValues[index] = value;
+            return new Snapshot(ids, nextValues);
+        }
+
+        private Snapshot insert(int index, int id, Object value) {
+            var nextIds = new int[ids.length + 1];
+            var nextValues = new Object[values.length + 1];
+            System.arraycopy(ids, 0, nextIds, 0, index);
+            System.arraycopy(values, 0, nextValues, 0, index);
+            nextIds[index] = id;
+            nextValues[index] = value;
+            System.arraycopy(ids, index, nextIds, index + 1, ids.length - index);
+            System.arraycopy(values, index, nextValues, index + 1, values.length - index);
+            return new Snapshot(nextIds, nextValues);
+        }
+
+        private Snapshot delete(int index) {
+            var nextIds = new int[ids.length - 1];
+            var nextValues = new Object[values.length - 1];
+            System.arraycopy(ids, 0, nextIds, 0, index);
+            System.arraycopy(values, 0, nextValues, 0, index);
+            System.arraycopy(ids, index + 1, nextIds, index, ids.length - index - 1);
+            System.arraycopy(values, index + 1, nextValues, index, values.length - index - 1);
+            return new Snapshot(nextIds, nextValues);
+        }
+    }
+}
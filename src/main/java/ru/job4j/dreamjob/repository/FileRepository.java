@@ -2,7 +2,11 @@ package ru.job4j.dreamjob.repository;
 
 import ru.job4j.dreamjob.model.File;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface FileRepository {
 
@@ -11,4 +15,24 @@ public interface FileRepository {
     Optional<File> findById(int id);
 
     void deleteById(int id);
+
+    /* false, если файла нет или он уже помечен удалённым */
+    boolean softDeleteById(int id);
+
+    /* помеченные удалёнными раньше before файлы, на которые уже не ссылаются вакансии и кандидаты */
+    Collection<File> findDeleted(LocalDateTime before, int limit);
+
+    /* не помеченные удалёнными файлы с id больше afterId, по возрастанию id */
+    Collection<File> findPage(int afterId, int limit);
+
+    /* какие из paths записаны в files, включая помеченные удалёнными строки */
+    Set<String> findExistingPaths(Collection<String> paths);
+
+    /* файлы с id больше afterId, для которых ещё не посчитана контрольная сумма, по возрастанию id */
+    Collection<File> findWithoutChecksum(int afterId, int limit);
+
+    void updateMetadata(int id, long size, String contentType, String sha256);
+
+    /* суммарный размер не помеченных удалёнными файлов по владельцам */
+    Map<Integer, Long> sumSizeByUser();
 }
\ No newline at end of file
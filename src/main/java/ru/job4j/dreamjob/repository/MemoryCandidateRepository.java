@@ -1,24 +1,33 @@
 package ru.job4j.dreamjob.repository;
 
 import net.jcip.annotations.ThreadSafe;
-import org.springframework.stereotype.Repository;
 import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.persistence.Records;
+import ru.job4j.dreamjob.persistence.WriteAheadLog;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 @ThreadSafe
-@Repository
 public class MemoryCandidateRepository implements CandidateRepository {
 
     private final AtomicInteger nextId = new AtomicInteger(1);
 
-    private final Map<Integer, Candidate> candidates = new ConcurrentHashMap<>();
+    private final CopyOnWriteIdMap<Candidate> candidates = new CopyOnWriteIdMap<>();
 
-    private MemoryCandidateRepository() {
+    /* null - без сохранения на диск */
+    private final WriteAheadLog log;
+
+    MemoryCandidateRepository() {
+        this.log = null;
         save(new Candidate(0, "Ivan Ivanov", "<1 года опыта", LocalDateTime.now(), 1, 0));
         save(new Candidate(0, "Pavel Pavlov", ">3 лет опыта", LocalDateTime.now(), 2, 0));
         save(new Candidate(0, "Petya Petrov", "Писать код - мое призвание", LocalDateTime.now(), 2, 0));
@@ -27,35 +36,153 @@ public class MemoryCandidateRepository implements CandidateRepository {
         save(new Candidate(0, "Roma Romanov", "5 лет опыта", LocalDateTime.now(), 3, 0));
     }
 
+    /* состояние восстанавливается из журнала, демонстрационные записи не добавляются */
+    public MemoryCandidateRepository(WriteAheadLog log) {
+        this.log = log;
+        log.open(this::replay, this::snapshot);
+    }
+
     @Override
     public Candidate save(Candidate candidate) {
         candidate.setId(nextId.getAndIncrement());
-        candidates.put(candidate.getId(), candidate);
+        write(() -> true, out -> write(out, candidate), () -> candidates.put(candidate.getId(), candidate));
         return candidate;
     }
 
     @Override
     public boolean deleteById(int id) {
-        return candidates.remove(id) != null;
+        return write(() -> candidates.get(id).isPresent(), out -> {
+            out.writeByte(Records.REMOVE);
+            out.writeInt(id);
+        }, () -> candidates.remove(id));
     }
 
+    /*
+     * Хранится копия с новой версией, а не переданный объект: им может оказаться уже опубликованный
+     * экземпляр из findById, который читают другие потоки. Версия переданного объекта увеличивается
+     * только после успешной замены.
+     */
     @Override
     public boolean update(Candidate candidate) {
-        return candidates.computeIfPresent(candidate.getId(),
-                (id, oldCandidate) -> new Candidate(
-                        oldCandidate.getId(), candidate.getName(), candidate.getDescription(),
-                        candidate.getCreationDate(), candidate.getCityId(),
-                        candidate.getFileId()
-                )) != null;
+        var expected = candidate.getVersion();
+        var updated = copyOf(candidate, expected + 1);
+        var isUpdated = write(
+                () -> candidates.get(candidate.getId()).filter(old -> old.getVersion() == expected).isPresent(),
+                out -> write(out, updated),
+                () -> candidates.put(candidate.getId(), updated));
+        if (isUpdated) {
+            candidate.setVersion(expected + 1);
+        }
+        return isUpdated;
     }
 
     @Override
     public Optional<Candidate> findById(int id) {
-        return Optional.ofNullable(candidates.get(id));
+        return candidates.get(id);
     }
 
     @Override
     public Collection<Candidate> findAll() {
         return candidates.values();
     }
+
+    @Override
+    public Collection<Candidate> findPage(int afterId, int limit) {
+        return candidates.valuesAfter(afterId, limit);
+    }
+
+    /* в памяти записи удаляются сразу, дочищать нечего */
+    @Override
+    public int purgeDeleted(LocalDateTime before, int limit) {
+        return 0;
+    }
+
+    @Override
+    public void streamAll(Consumer<Candidate> action) {
+        candidates.values().forEach(action);
+    }
+
+    @Override
+    public void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Candidate> action) {
+        for (var candidate : candidates.values()) {
+            if ((cityId == 0 || candidate.getCityId() == cityId)
+                    && (from == null || !candidate.getCreationDate().isBefore(from))
+                    && (to == null || candidate.getCreationDate().isBefore(to))) {
+                action.accept(candidate);
+            }
+        }
+    }
+
+    /* изменение применяется, только если condition выполняется, а запись уже в журнале */
+    private boolean write(BooleanSupplier condition, WriteAheadLog.RecordWriter record, Runnable mutation) {
+        if (log != null) {
+            return log.write(condition, record, mutation);
+        }
+        synchronized (this) {
+            if (!condition.getAsBoolean()) {
+                return false;
+            }
+            mutation.run();
+            return true;
+        }
+    }
+
+    private void replay(ByteBuffer record) {
+        switch (record.get()) {
+            case Records.PUT -> {
+                var candidate = read(record);
+                candidates.put(candidate.getId(), candidate);
+                nextId.accumulateAndGet(candidate.getId() + 1, Math::max);
+            }
+            case Records.REMOVE -> candidates.remove(record.getInt());
+            case Records.SEQUENCE -> nextId.accumulateAndGet(record.getInt(), Math::max);
+            default -> throw new IllegalStateException("Unknown record type");
+        }
+    }
+
+    private List<WriteAheadLog.RecordWriter> snapshot() {
+        var records = new ArrayList<WriteAheadLog.RecordWriter>();
+        var sequence = nextId.get();
+        records.add(out -> {
+            out.writeByte(Records.SEQUENCE);
+            out.writeInt(sequence);
+        });
+        for (var candidate : candidates.values()) {
+            records.add(out -> write(out, candidate));
+        }
+        return records;
+    }
+
+    private static void write(DataOutputStream out, Candidate candidate) throws IOException {
+        out.writeByte(Records.PUT);
+        out.writeInt(candidate.getId());
+        Records.writeString(out, candidate.getName());
+        Records.writeString(out, candidate.getDescription());
+        Records.writeDateTime(out, candidate.getCreationDate());
+        out.writeInt(candidate.getCityId());
+        out.writeInt(candidate.getFileId());
+        out.writeInt(candidate.getVersion());
+    }
+
+    private static Candidate copyOf(Candidate candidate, int version) {
+        var copy = new Candidate(
+                candidate.getId(), candidate.getName(), candidate.getDescription(),
+                candidate.getCreationDate(), candidate.getCityId(), candidate.getFileId()
+        );
+        copy.setVersion(version);
+        return copy;
+    }
+
+    private static Candidate read(ByteBuffer in) {
+        var candidate = new Candidate(
+                in.getInt(),
+                Records.readString(in),
+                Records.readString(in),
+                Records.readDateTime(in),
+                in.getInt(),
+                in.getInt()
+        );
+        candidate.setVersion(in.getInt());
+        return candidate;
+    }
 }
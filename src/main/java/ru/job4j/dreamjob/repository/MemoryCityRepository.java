@@ -1,13 +1,11 @@
 package ru.job4j.dreamjob.repository;
 
-import org.springframework.stereotype.Repository;
 import ru.job4j.dreamjob.model.City;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
-@Repository
 public class MemoryCityRepository implements CityRepository {
 
     private final Map<Integer, City> cities = new HashMap<>() {
@@ -1,34 +1,233 @@
 package ru.job4j.dreamjob.repository;
 
-import org.springframework.stereotype.Repository;
+import net.jcip.annotations.ThreadSafe;
 import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.persistence.Records;
+import ru.job4j.dreamjob.persistence.WriteAheadLog;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
 
-@Repository
+@ThreadSafe
 public class MemoryFileRepository implements FileRepository {
 
-    private final AtomicInteger nextId = new AtomicInteger(0);
+    private static final byte SOFT_DELETE = 4;
 
-    private final Map<Integer, File> files = new ConcurrentHashMap<>();
+    private static final byte METADATA = 5;
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    private final CopyOnWriteIdMap<File> files = new CopyOnWriteIdMap<>();
+
+    /* id помеченных удалёнными файлов и время пометки; их содержимое ещё на диске */
+    private final Map<Integer, LocalDateTime> deleted = new ConcurrentHashMap<>();
+
+    /* null - без сохранения на диск */
+    private final WriteAheadLog log;
+
+    MemoryFileRepository() {
+        this.log = null;
+    }
+
+    /* состояние восстанавливается из журнала */
+    public MemoryFileRepository(WriteAheadLog log) {
+        this.log = log;
+        log.open(this::replay, this::snapshot);
+    }
 
     @Override
     public File save(File file) {
-        file.setId(nextId.incrementAndGet());
-        files.put(file.getId(), file);
+        if (file.getCreatedAt() == null) {
+            file.setCreatedAt(LocalDateTime.now());
+        }
+        file.setId(nextId.getAndIncrement());
+        write(() -> true, out -> write(out, file), () -> files.put(file.getId(), file));
         return file;
     }
 
     @Override
     public Optional<File> findById(int id) {
-        return Optional.ofNullable(files.get(id));
+        return deleted.containsKey(id) ? Optional.empty() : files.get(id);
     }
 
     @Override
     public void deleteById(int id) {
-        files.remove(id);
+        write(() -> files.get(id).isPresent(), out -> {
+            out.writeByte(Records.REMOVE);
+            out.writeInt(id);
+        }, () -> {
+            deleted.remove(id);
+            files.remove(id);
+        });
+    }
+
+    @Override
+    public boolean softDeleteById(int id) {
+        var deletedAt = LocalDateTime.now();
+        return write(() -> files.get(id).isPresent() && !deleted.containsKey(id),
+                out -> writeSoftDelete(out, id, deletedAt),
+                () -> deleted.put(id, deletedAt));
+    }
+
+    /* вакансии и кандидаты в памяти удаляются сразу, поэтому ссылок на помеченные файлы не остаётся */
+    @Override
+    public Collection<File> findDeleted(LocalDateTime before, int limit) {
+        return deleted.entrySet().stream()
+                .filter(entry -> entry.getValue().isBefore(before))
+                .limit(limit)
+                .map(entry -> files.get(entry.getKey()))
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    @Override
+    public Collection<File> findPage(int afterId, int limit) {
+        return files.values().stream()
+                .filter(file -> file.getId() > afterId && !deleted.containsKey(file.getId()))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Set<String> findExistingPaths(Collection<String> paths) {
+        var wanted = new HashSet<>(paths);
+        return files.values().stream()
+                .map(File::getPath)
+                .filter(wanted::contains)
+                .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Collection<File> findWithoutChecksum(int afterId, int limit) {
+        return files.values().stream()
+                .filter(file -> file.getId() > afterId && file.getSha256() == null)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void updateMetadata(int id, long size, String contentType, String sha256) {
+        write(() -> files.get(id).isPresent(),
+                out -> {
+                    out.writeByte(METADATA);
+                    out.writeInt(id);
+                    out.writeLong(size);
+                    Records.writeString(out, contentType);
+                    Records.writeString(out, sha256);
+                },
+                () -> files.put(id, withMetadata(files.get(id).orElseThrow(), size, contentType, sha256)));
+    }
+
+    @Override
+    public Map<Integer, Long> sumSizeByUser() {
+        return files.values().stream()
+                .filter(file -> file.getUserId() != 0 && !deleted.containsKey(file.getId()))
+                .collect(Collectors.groupingBy(File::getUserId, Collectors.summingLong(File::getSize)));
+    }
+
+    /* изменение применяется, только если condition выполняется, а запись уже в журнале */
+    private boolean write(BooleanSupplier condition, WriteAheadLog.RecordWriter record, Runnable mutation) {
+        if (log != null) {
+            return log.write(condition, record, mutation);
+        }
+        synchronized (this) {
+            if (!condition.getAsBoolean()) {
+                return false;
+            }
+            mutation.run();
+            return true;
+        }
+    }
+
+    private void replay(ByteBuffer record) {
+        switch (record.get()) {
+            case Records.PUT -> {
+                var file = new File(Records.readString(record), Records.readString(record));
+                file.setUserId(record.getInt());
+                file.setSize(record.getLong());
+                file.setContentType(Records.readString(record));
+                file.setSha256(Records.readString(record));
+                file.setCreatedAt(Records.readDateTime(record));
+                put(file, record.getInt());
+            }
+            case METADATA -> {
+                var id = record.getInt();
+                var size = record.getLong();
+                var contentType = Records.readString(record);
+                var sha256 = Records.readString(record);
+                files.get(id).ifPresent(file -> files.put(id, withMetadata(file, size, contentType, sha256)));
+            }
+            case Records.REMOVE -> {
+                var id = record.getInt();
+                deleted.remove(id);
+                files.remove(id);
+            }
+            case SOFT_DELETE -> deleted.put(record.getInt(), Records.readDateTime(record));
+            case Records.SEQUENCE -> nextId.accumulateAndGet(record.getInt(), Math::max);
+            default -> throw new IllegalStateException("Unknown record type");
+        }
+    }
+
+    private void put(File file, int id) {
+        file.setId(id);
+        files.put(id, file);
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    /* хранимые файлы не меняются на месте: их могут в это время читать другие потоки */
+    private static File withMetadata(File file, long size, String contentType, String sha256) {
+        var copy = new File(file.getName(), file.getPath());
+        copy.setId(file.getId());
+        copy.setUserId(file.getUserId());
+        copy.setCreatedAt(file.getCreatedAt());
+        copy.setSize(size);
+        copy.setContentType(contentType);
+        copy.setSha256(sha256);
+        return copy;
+    }
+
+    private List<WriteAheadLog.RecordWriter> snapshot() {
+        var records = new ArrayList<WriteAheadLog.RecordWriter>();
+        var sequence = nextId.get();
+        records.add(out -> {
+            out.writeByte(Records.SEQUENCE);
+            out.writeInt(sequence);
+        });
+        for (var file : files.values()) {
+            records.add(out -> write(out, file));
+        }
+        deleted.forEach((id, deletedAt) -> records.add(out -> writeSoftDelete(out, id, deletedAt)));
+        return records;
+    }
+
+    private static void write(DataOutputStream out, File file) throws IOException {
+        out.writeByte(Records.PUT);
+        Records.writeString(out, file.getName());
+        Records.writeString(out, file.getPath());
+        out.writeInt(file.getUserId());
+        out.writeLong(file.getSize());
+        Records.writeString(out, file.getContentType());
+        Records.writeString(out, file.getSha256());
+        Records.writeDateTime(out, file.getCreatedAt());
+        out.writeInt(file.getId());
+    }
+
+    private static void writeSoftDelete(DataOutputStream out, int id, LocalDateTime deletedAt) throws IOException {
+        out.writeByte(SOFT_DELETE);
+        out.writeInt(id);
+        Records.writeDateTime(out, deletedAt);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package ru.job4j.dreamjob.repository;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* в журнал не пишется: после перезапуска проход просто начинается сначала */
+@ThreadSafe
+public class MemoryScrubCursorRepository implements ScrubCursorRepository {
+
+    private final Map<String, String> positions = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<String> findPosition(String name) {
+        return Optional.ofNullable(positions.get(name));
+    }
+
+    @Override
+    public void savePosition(String name, String position) {
+        positions.put(name, position);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.job4j.dreamjob.repository;
+
+import net.jcip.annotations.ThreadSafe;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.persistence.Records;
+import ru.job4j.dreamjob.persistence.WriteAheadLog;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+@ThreadSafe
+public class MemoryUserRepository implements UserRepository {
+
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    /* email уникален, как и в таблице users */
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+
+    /* null - без сохранения на диск */
+    private final WriteAheadLog log;
+
+    MemoryUserRepository() {
+        this.log = null;
+    }
+
+    /* состояние восстанавливается из журнала */
+    public MemoryUserRepository(WriteAheadLog log) {
+        this.log = log;
+        log.open(this::replay, this::snapshot);
+    }
+
+    @Override
+    public Optional<User> save(User user) {
+        user.setId(nextId.getAndIncrement());
+        var isSaved = write(() -> !users.containsKey(user.getEmail()), out -> write(out, user),
+                () -> users.put(user.getEmail(), user));
+        return isSaved ? Optional.of(user) : Optional.empty();
+    }
+
+    @Override
+    public Optional<User> findByEmailAndPassword(String email, String password) {
+        return Optional.ofNullable(users.get(email))
+                .filter(user -> user.getPassword().equals(password));
+    }
+
+    /* изменение применяется, только если condition выполняется, а запись уже в журнале */
+    private boolean write(BooleanSupplier condition, WriteAheadLog.RecordWriter record, Runnable mutation) {
+        if (log != null) {
+            return log.write(condition, record, mutation);
+        }
+        synchronized (this) {
+            if (!condition.getAsBoolean()) {
+                return false;
+            }
+            mutation.run();
+            return true;
+        }
+    }
+
+    private void replay(ByteBuffer record) {
+        switch (record.get()) {
+            case Records.PUT -> {
+                var user = new User(
+                        record.getInt(),
+                        Records.readString(record),
+                        Records.readString(record),
+                        Records.readString(record)
+                );
+                users.put(user.getEmail(), user);
+                nextId.accumulateAndGet(user.getId() + 1, Math::max);
+            }
+            case Records.SEQUENCE -> nextId.accumulateAndGet(record.getInt(), Math::max);
+            default -> throw new IllegalStateException("Unknown record type");
+        }
+    }
+
+    private List<WriteAheadLog.RecordWriter> snapshot() {
+        var records = new ArrayList<WriteAheadLog.RecordWriter>();
+        var sequence = nextId.get();
+        records.add(out -> {
+            out.writeByte(Records.SEQUENCE);
+            out.writeInt(sequence);
+        });
+        for (var user : users.values()) {
+            records.add(out -> write(out, user));
+        }
+        return records;
+    }
+
+    private static void write(DataOutputStream out, User user) throws IOException {
+        out.writeByte(Records.PUT);
+        out.writeInt(user.getId());
+        Records.writeString(out, user.getEmail());
+        Records.writeString(out, user.getName());
+        Records.writeString(out, user.getPassword());
+    }
+}
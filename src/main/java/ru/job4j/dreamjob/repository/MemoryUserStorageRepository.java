@@ -0,0 +1,24 @@
+package ru.job4j.dreamjob.repository;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* в журнал не пишется: занятое место всё равно пересчитывается по файлам при запуске */
+@ThreadSafe
+public class MemoryUserStorageRepository implements UserStorageRepository {
+
+    private final Map<Integer, Long> usedBytes = new ConcurrentHashMap<>();
+
+    /* отдельные лимиты в этом режиме не выставляются, действует общий */
+    @Override
+    public Map<Integer, Long> findQuotas() {
+        return Map.of();
+    }
+
+    @Override
+    public void saveUsage(Map<Integer, Long> usedBytes) {
+        this.usedBytes.putAll(usedBytes);
+    }
+}
@@ -1,23 +1,34 @@
 package ru.job4j.dreamjob.repository;
 
-import org.springframework.stereotype.Repository;
+import net.jcip.annotations.ThreadSafe;
 import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.persistence.Records;
+import ru.job4j.dreamjob.persistence.WriteAheadLog;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
-@Repository
+@ThreadSafe
 public class MemoryVacancyRepository implements VacancyRepository {
 
     private final AtomicInteger nextId = new AtomicInteger(1);
 
-    private final Map<Integer, Vacancy> vacancies = new ConcurrentHashMap<>();
+    private final CopyOnWriteIdMap<Vacancy> vacancies = new CopyOnWriteIdMap<>();
 
-    private MemoryVacancyRepository() {
+    /* null - без сохранения на диск */
+    private final WriteAheadLog log;
+
+    MemoryVacancyRepository() {
+        this.log = null;
         save(new Vacancy(0, "Intern Java Developer", "без опыта", LocalDateTime.now(), true, 1, 0));
         save(new Vacancy(0, "Junior Java Developer", "без опыта", LocalDateTime.now(), true, 1, 0));
         save(new Vacancy(0, "Junior+ Java Developer", "1 год опыта", LocalDateTime.now(), true, 3, 0));
@@ -26,35 +37,155 @@ public class MemoryVacancyRepository implements VacancyRepository {
         save(new Vacancy(0, "Senior Java Developer", "5 лет опыта", LocalDateTime.now(), true, 2, 0));
     }
 
+    /* состояние восстанавливается из журнала, демонстрационные записи не добавляются */
+    public MemoryVacancyRepository(WriteAheadLog log) {
+        this.log = log;
+        log.open(this::replay, this::snapshot);
+    }
+
     @Override
     public Vacancy save(Vacancy vacancy) {
         vacancy.setId(nextId.getAndIncrement());
-        vacancies.put(vacancy.getId(), vacancy);
+        write(() -> true, out -> write(out, vacancy), () -> vacancies.put(vacancy.getId(), vacancy));
         return vacancy;
     }
 
     @Override
     public boolean deleteById(int id) {
-        return vacancies.remove(id) != null;
+        return write(() -> vacancies.get(id).isPresent(), out -> {
+            out.writeByte(Records.REMOVE);
+            out.writeInt(id);
+        }, () -> vacancies.remove(id));
     }
 
+    /*
+     * Хранится копия с новой версией, а не переданный объект: им может оказаться уже опубликованный
+     * экземпляр из findById, который читают другие потоки. Версия переданного объекта увеличивается
+     * только после успешной замены.
+     */
     @Override
     public boolean update(Vacancy vacancy) {
-        return vacancies.computeIfPresent(vacancy.getId(),
-                (id, oldVacancy) -> new Vacancy(
-                        oldVacancy.getId(), vacancy.getTitle(), vacancy.getDescription(),
-                        vacancy.getCreationDate(), vacancy.getVisible(), vacancy.getCityId(),
-                        vacancy.getFileId()
-                )) != null;
+        var expected = vacancy.getVersion();
+        var updated = copyOf(vacancy, expected + 1);
+        var isUpdated = write(
+                () -> vacancies.get(vacancy.getId()).filter(old -> old.getVersion() == expected).isPresent(),
+                out -> write(out, updated),
+                () -> vacancies.put(vacancy.getId(), updated));
+        if (isUpdated) {
+            vacancy.setVersion(expected + 1);
+        }
+        return isUpdated;
     }
 
     @Override
     public Optional<Vacancy> findById(int id) {
-        return Optional.ofNullable(vacancies.get(id));
+        return vacancies.get(id);
     }
 
     @Override
     public Collection<Vacancy> findAll() {
         return vacancies.values();
     }
+
+    @Override
+    public Collection<Vacancy> findPage(int afterId, int limit) {
+        return vacancies.valuesAfter(afterId, limit);
+    }
+
+    /* в памяти записи удаляются сразу, дочищать нечего */
+    @Override
+    public int purgeDeleted(LocalDateTime before, int limit) {
+        return 0;
+    }
+
+    @Override
+    public void streamAll(Consumer<Vacancy> action) {
+        vacancies.values().forEach(action);
+    }
+
+    @Override
+    public void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Vacancy> action) {
+        for (var vacancy : vacancies.values()) {
+            if ((cityId == 0 || vacancy.getCityId() == cityId)
+                    && (from == null || !vacancy.getCreationDate().isBefore(from))
+                    && (to == null || vacancy.getCreationDate().isBefore(to))) {
+                action.accept(vacancy);
+            }
+        }
+    }
+
+    /* изменение применяется, только если condition выполняется, а запись уже в журнале */
+    private boolean write(BooleanSupplier condition, WriteAheadLog.RecordWriter record, Runnable mutation) {
+        if (log != null) {
+            return log.write(condition, record, mutation);
+        }
+        synchronized (this) {
+            if (!condition.getAsBoolean()) {
+                return false;
+            }
+            mutation.run();
+            return true;
+        }
+    }
+
+    private void replay(ByteBuffer record) {
+        switch (record.get()) {
+            case Records.PUT -> {
+                var vacancy = read(record);
+                vacancies.put(vacancy.getId(), vacancy);
+                nextId.accumulateAndGet(vacancy.getId() + 1, Math::max);
+            }
+            case Records.REMOVE -> vacancies.remove(record.getInt());
+            case Records.SEQUENCE -> nextId.accumulateAndGet(record.getInt(), Math::max);
+            default -> throw new IllegalStateException("Unknown record type");
+        }
+    }
+
+    private List<WriteAheadLog.RecordWriter> snapshot() {
+        var records = new ArrayList<WriteAheadLog.RecordWriter>();
+        var sequence = nextId.get();
+        records.add(out -> {
+            out.writeByte(Records.SEQUENCE);
+            out.writeInt(sequence);
+        });
+        for (var vacancy : vacancies.values()) {
+            records.add(out -> write(out, vacancy));
+        }
+        return records;
+    }
+
+    private static void write(DataOutputStream out, Vacancy vacancy) throws IOException {
+        out.writeByte(Records.PUT);
+        out.writeInt(vacancy.getId());
+        Records.writeString(out, vacancy.getTitle());
+        Records.writeString(out, vacancy.getDescription());
+        Records.writeDateTime(out, vacancy.getCreationDate());
+        out.writeBoolean(vacancy.getVisible());
+        out.writeInt(vacancy.getCityId());
+        out.writeInt(vacancy.getFileId());
+        out.writeInt(vacancy.getVersion());
+    }
+
+    private static Vacancy copyOf(Vacancy vacancy, int version) {
+        var copy = new Vacancy(
+                vacancy.getId(), vacancy.getTitle(), vacancy.getDescription(), vacancy.getCreationDate(),
+                vacancy.getVisible(), vacancy.getCityId(), vacancy.getFileId()
+        );
+        copy.setVersion(version);
+        return copy;
+    }
+
+    private static Vacancy read(ByteBuffer in) {
+        var vacancy = new Vacancy(
+                in.getInt(),
+                Records.readString(in),
+                Records.readString(in),
+                Records.readDateTime(in),
+                in.get() != 0,
+                in.getInt(),
+                in.getInt()
+        );
+        vacancy.setVersion(in.getInt());
+        return vacancy;
+    }
 }
@@ -0,0 +1,46 @@
+package ru.job4j.dreamjob.repository;
+
+import net.jcip.annotations.ThreadSafe;
+import org.sql2o.Sql2o;
+
+import java.time.Duration;
+
+/*
+ * Выбирает базу для запроса одного репозитория. Записи всегда идут в основную БД,
+ * чтения - в реплику, кроме maxLag после последней записи в этот репозиторий:
+ * реплика может ещё не догнать основную, а пользователь должен сразу видеть своё изменение,
+ * и кэш репозиториев не должен заполниться устаревшей строкой сразу после сброса.
+ */
+@ThreadSafe
+final class ReplicaRouter {
+
+    private final Sql2o primary;
+
+    private final Sql2o replica;
+
+    private final long maxLagNanos;
+
+    private volatile long lastWrite;
+
+    ReplicaRouter(Sql2o primary, Sql2o replica, Duration maxLag) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagNanos = maxLag.toNanos();
+        this.lastWrite = System.nanoTime() - maxLagNanos;
+    }
+
+    Sql2o forRead() {
+        return System.nanoTime() - lastWrite < maxLagNanos ? primary : replica;
+    }
+
+    /* окно считается от начала записи, поэтому maxLag должен покрывать и саму запись */
+    Sql2o forWrite() {
+        lastWrite = System.nanoTime();
+        return primary;
+    }
+
+    /* служебные запросы, которым нужны самые свежие данные, но которые не меняют видимые строки */
+    Sql2o primary() {
+        return primary;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.job4j.dreamjob.repository;
+
+import org.sql2o.ResultSetHandler;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/*
+ * Ручное отображение строк в модели по индексам колонок вместо рефлексии Sql2o.
+ * Порядок колонок задают константы *_COLUMNS, поэтому запросы с этими мапперами
+ * должны выбирать именно их, а не SELECT *.
+ */
+final class RowMappers {
+
+    static final String VACANCY_COLUMNS = "id, title, description, creation_date, visible, city_id, file_id, version";
+
+    static final String CANDIDATE_COLUMNS = "id, name, description, creation_date, city_id, file_id, version";
+
+    static final String FILE_COLUMNS = "id, name, path, user_id, size, content_type, sha256, created_at";
+
+    static final String USER_COLUMNS = "id, email, name, password";
+
+    static final String CITY_COLUMNS = "id, name";
+
+    static final ResultSetHandler<Vacancy> VACANCY = resultSet -> {
+        var vacancy = new Vacancy(
+                resultSet.getInt(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                localDateTime(resultSet, 4),
+                resultSet.getBoolean(5),
+                resultSet.getInt(6),
+                resultSet.getInt(7)
+        );
+        vacancy.setVersion(resultSet.getInt(8));
+        return vacancy;
+    };
+
+    static final ResultSetHandler<Candidate> CANDIDATE = resultSet -> {
+        var candidate = new Candidate(
+                resultSet.getInt(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                localDateTime(resultSet, 4),
+                resultSet.getInt(5),
+                resultSet.getInt(6)
+        );
+        candidate.setVersion(resultSet.getInt(7));
+        return candidate;
+    };
+
+    static final ResultSetHandler<File> FILE = resultSet -> {
+        var file = new File(resultSet.getString(2), resultSet.getString(3));
+        file.setId(resultSet.getInt(1));
+        file.setUserId(resultSet.getInt(4));
+        file.setSize(resultSet.getLong(5));
+        file.setContentType(resultSet.getString(6));
+        file.setSha256(resultSet.getString(7));
+        file.setCreatedAt(localDateTime(resultSet, 8));
+        return file;
+    };
+
+    static final ResultSetHandler<User> USER = resultSet -> new User(
+            resultSet.getInt(1),
+            resultSet.getString(2),
+            resultSet.getString(3),
+            resultSet.getString(4)
+    );
+
+    static final ResultSetHandler<City> CITY = resultSet -> new City(
+            resultSet.getInt(1),
+            resultSet.getString(2)
+    );
+
+    private RowMappers() {
+    }
+
+    /* creation_date у вакансий и кандидатов допускает NULL, конвертер Sql2o тоже отдавал для него null */
+    private static LocalDateTime localDateTime(ResultSet resultSet, int index) throws SQLException {
+        var timestamp = resultSet.getTimestamp(index);
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,11 @@
+package ru.job4j.dreamjob.repository;
+
+import java.util.Optional;
+
+/* позиции, на которых остановился проход проверки хранилища, чтобы после перезапуска продолжить с них */
+public interface ScrubCursorRepository {
+
+    Optional<String> findPosition(String name);
+
+    void savePosition(String name, String position);
+}
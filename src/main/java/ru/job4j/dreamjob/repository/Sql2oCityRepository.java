@@ -1,5 +1,7 @@
 package ru.job4j.dreamjob.repository;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 import org.sql2o.Sql2o;
 import ru.job4j.dreamjob.model.City;
@@ -7,19 +9,21 @@ import ru.job4j.dreamjob.model.City;
 import java.util.Collection;
 
 @Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "sql2o", matchIfMissing = true)
 public class Sql2oCityRepository implements CityRepository {
 
     private final Sql2o sql2o;
 
-    public Sql2oCityRepository(Sql2o sql2o) {
+    /* города - справочник, который не меняется из приложения, поэтому всегда читаются с реплики */
+    public Sql2oCityRepository(@Qualifier("replicaDatabaseClient") Sql2o sql2o) {
         this.sql2o = sql2o;
     }
 
     @Override
     public Collection<City> findAll() {
         try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM cities");
-            return query.executeAndFetch(City.class);
+            var query = connection.createQuery("SELECT " + RowMappers.CITY_COLUMNS + " FROM cities");
+            return query.executeAndFetch(RowMappers.CITY);
         }
     }
 }
\ No newline at end of file
@@ -1,26 +1,50 @@
 package ru.job4j.dreamjob.repository;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 import org.sql2o.Sql2o;
 import ru.job4j.dreamjob.model.File;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "sql2o", matchIfMissing = true)
 public class Sql2oFileRepository implements FileRepository {
 
-    private final Sql2o sql2o;
+    private final ReplicaRouter router;
 
-    public Sql2oFileRepository(Sql2o sql2o) {
-        this.sql2o = sql2o;
+    public Sql2oFileRepository(Sql2o sql2o, @Qualifier("replicaDatabaseClient") Sql2o replica,
+                                 @Value("${datasource.replica.max-lag}") Duration replicaMaxLag) {
+        this.router = new ReplicaRouter(sql2o, replica, replicaMaxLag);
     }
 
     @Override
     public File save(File file) {
-        try (var connection = sql2o.open()) {
-            var query = connection.createQuery("INSERT INTO files (name, path) VALUES (:name, :path)", true)
+        if (file.getCreatedAt() == null) {
+            file.setCreatedAt(LocalDateTime.now());
+        }
+        try (var connection = router.forWrite().open()) {
+            var sql = """
+                    INSERT INTO files (name, path, user_id, size, content_type, sha256, created_at)
+                    VALUES (:name, :path, :userId, :size, :contentType, :sha256, :createdAt)
+                    """;
+            var query = connection.createQuery(sql, true)
                     .addParameter("name", file.getName())
-                    .addParameter("path", file.getPath());
+                    .addParameter("path", file.getPath())
+                    .addParameter("userId", file.getUserId() == 0 ? null : file.getUserId())
+                    .addParameter("size", file.getSize())
+                    .addParameter("contentType", file.getContentType())
+                    .addParameter("sha256", file.getSha256())
+                    .addParameter("createdAt", file.getCreatedAt());
             int generatedId = query.executeUpdate().getKey(Integer.class);
             file.setId(generatedId);
             return file;
@@ -29,18 +53,105 @@ public class Sql2oFileRepository implements FileRepository {
 
     @Override
     public Optional<File> findById(int id) {
-        try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM files WHERE id = :id");
-            var file = query.addParameter("id", id).executeAndFetchFirst(File.class);
+        try (var connection = router.forRead().open()) {
+            var query = connection.createQuery("SELECT " + RowMappers.FILE_COLUMNS + " FROM files WHERE id = :id AND deleted_at IS NULL");
+            var file = query.addParameter("id", id).executeAndFetchFirst(RowMappers.FILE);
             return Optional.ofNullable(file);
         }
     }
 
     @Override
     public void deleteById(int id) {
-        try (var connection = sql2o.open()) {
+        try (var connection = router.forWrite().open()) {
             var query = connection.createQuery("DELETE FROM files WHERE id = :id");
             query.addParameter("id", id).executeUpdate();
         }
     }
+
+    @Override
+    public boolean softDeleteById(int id) {
+        try (var connection = router.forWrite().open()) {
+            var query = connection.createQuery("UPDATE files SET deleted_at = :deletedAt WHERE id = :id AND deleted_at IS NULL");
+            return query.addParameter("deletedAt", LocalDateTime.now())
+                    .addParameter("id", id)
+                    .executeUpdate()
+                    .getResult() > 0;
+        }
+    }
+
+    @Override
+    public Collection<File> findDeleted(LocalDateTime before, int limit) {
+        try (var connection = router.primary().open()) {
+            var sql = """
+                    SELECT %s FROM files f
+                    WHERE deleted_at < :before
+                    AND NOT EXISTS (SELECT 1 FROM vacancies v WHERE v.file_id = f.id)
+                    AND NOT EXISTS (SELECT 1 FROM candidates c WHERE c.file_id = f.id)
+                    ORDER BY id LIMIT :limit
+                    """.formatted(RowMappers.FILE_COLUMNS);
+            var query = connection.createQuery(sql)
+                    .addParameter("before", before)
+                    .addParameter("limit", limit);
+            return query.executeAndFetch(RowMappers.FILE);
+        }
+    }
+
+    @Override
+    public Collection<File> findPage(int afterId, int limit) {
+        try (var connection = router.primary().open()) {
+            var sql = "SELECT " + RowMappers.FILE_COLUMNS + " FROM files WHERE id > :afterId AND deleted_at IS NULL ORDER BY id LIMIT :limit";
+            var query = connection.createQuery(sql)
+                    .addParameter("afterId", afterId)
+                    .addParameter("limit", limit);
+            return query.executeAndFetch(RowMappers.FILE);
+        }
+    }
+
+    @Override
+    public Set<String> findExistingPaths(Collection<String> paths) {
+        if (paths.isEmpty()) {
+            return Set.of();
+        }
+        try (var connection = router.primary().open()) {
+            var query = connection.createQuery("SELECT path FROM files WHERE path IN (:paths)")
+                    .addParameter("paths", paths);
+            return new HashSet<>(query.executeScalarList(String.class));
+        }
+    }
+
+    @Override
+    public Collection<File> findWithoutChecksum(int afterId, int limit) {
+        try (var connection = router.primary().open()) {
+            var sql = "SELECT " + RowMappers.FILE_COLUMNS + " FROM files WHERE id > :afterId AND sha256 IS NULL ORDER BY id LIMIT :limit";
+            var query = connection.createQuery(sql)
+                    .addParameter("afterId", afterId)
+                    .addParameter("limit", limit);
+            return query.executeAndFetch(RowMappers.FILE);
+        }
+    }
+
+    @Override
+    public void updateMetadata(int id, long size, String contentType, String sha256) {
+        try (var connection = router.forWrite().open()) {
+            var sql = "UPDATE files SET size = :size, content_type = :contentType, sha256 = :sha256 WHERE id = :id";
+            connection.createQuery(sql)
+                    .addParameter("size", size)
+                    .addParameter("contentType", contentType)
+                    .addParameter("sha256", sha256)
+                    .addParameter("id", id)
+                    .executeUpdate();
+        }
+    }
+
+    @Override
+    public Map<Integer, Long> sumSizeByUser() {
+        try (var connection = router.primary().open()) {
+            var sql = "SELECT user_id, SUM(size) FROM files WHERE user_id IS NOT NULL AND deleted_at IS NULL GROUP BY user_id";
+            var sizes = new HashMap<Integer, Long>();
+            for (var row : connection.createQuery(sql).executeAndFetchTable().rows()) {
+                sizes.put(row.getInteger(0), row.getLong(1));
+            }
+            return sizes;
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package ru.job4j.dreamjob.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.sql2o.Sql2o;
+
+import java.util.Optional;
+
+@Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "sql2o", matchIfMissing = true)
+public class Sql2oScrubCursorRepository implements ScrubCursorRepository {
+
+    private final Sql2o sql2o;
+
+    public Sql2oScrubCursorRepository(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    @Override
+    public Optional<String> findPosition(String name) {
+        try (var connection = sql2o.open()) {
+            var query = connection.createQuery("SELECT position FROM storage_scrub_cursors WHERE name = :name")
+                    .addParameter("name", name);
+            return Optional.ofNullable(query.executeScalar(String.class));
+        }
+    }
+
+    /* курсор пишет только один поток проверки, поэтому гонки между UPDATE и INSERT нет */
+    @Override
+    public void savePosition(String name, String position) {
+        try (var connection = sql2o.open()) {
+            var updated = connection.createQuery("UPDATE storage_scrub_cursors SET position = :position WHERE name = :name")
+                    .addParameter("position", position)
+                    .addParameter("name", name)
+                    .executeUpdate()
+                    .getResult();
+            if (updated == 0) {
+                connection.createQuery("INSERT INTO storage_scrub_cursors (name, position) VALUES (:name, :position)")
+                        .addParameter("name", name)
+                        .addParameter("position", position)
+                        .executeUpdate();
+            }
+        }
+    }
+}
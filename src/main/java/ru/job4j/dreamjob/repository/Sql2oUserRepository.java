@@ -1,7 +1,6 @@
 package ru.job4j.dreamjob.repository;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 import org.sql2o.Sql2o;
 import ru.job4j.dreamjob.model.User;
@@ -9,47 +8,47 @@ import ru.job4j.dreamjob.model.User;
 import java.util.Optional;
 
 @Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "sql2o", matchIfMissing = true)
 public class Sql2oUserRepository implements UserRepository {
     private final Sql2o sql2o;
 
-    private static final Logger LOG = LoggerFactory.getLogger(Sql2oUserRepository.class.getName());
-
     public Sql2oUserRepository(Sql2o sql2o) {
         this.sql2o = sql2o;
     }
 
     @Override
     public Optional<User> save(User user) {
-        Optional<User> rsl = Optional.empty();
         try (var connection = sql2o.open()) {
+            /* занятый email - штатная ситуация, поэтому конфликт гасим в самом запросе, а не через исключение */
             var sql = """
                       INSERT INTO users(email, name, password)
                       VALUES (:email, :name, :password)
+                      ON CONFLICT DO NOTHING
                       """;
             var query = connection.createQuery(sql, true)
                     .addParameter("email", user.getEmail())
                     .addParameter("name", user.getName())
                     .addParameter("password", user.getPassword());
-            int generatedId = query.executeUpdate().getKey(Integer.class);
-            user.setId(generatedId);
-            rsl = Optional.of(user);
-        } catch (Exception e) {
-            LOG.error("Email have been already taking by another user", e);
+            var result = query.executeUpdate();
+            if (result.getResult() == 0) {
+                return Optional.empty();
+            }
+            user.setId(result.getKey(Integer.class));
+            return Optional.of(user);
         }
-        return rsl;
     }
 
     @Override
     public Optional<User> findByEmailAndPassword(String email, String password) {
         try (var connection = sql2o.open()) {
             var sql = """
-                      SELECT * FROM users
+                      SELECT %s FROM users
                       WHERE email = :email AND password = :password
-                      """;
+                      """.formatted(RowMappers.USER_COLUMNS);
             var query = connection.createQuery(sql)
                     .addParameter("email", email)
                     .addParameter("password", password);
-            var user = query.executeAndFetchFirst(User.class);
+            var user = query.executeAndFetchFirst(RowMappers.USER);
             return Optional.ofNullable(user);
         }
     }
@@ -0,0 +1,52 @@
+package ru.job4j.dreamjob.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.sql2o.Sql2o;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "sql2o", matchIfMissing = true)
+public class Sql2oUserStorageRepository implements UserStorageRepository {
+
+    private final Sql2o sql2o;
+
+    public Sql2oUserStorageRepository(Sql2o sql2o) {
+        this.sql2o = sql2o;
+    }
+
+    @Override
+    public Map<Integer, Long> findQuotas() {
+        try (var connection = sql2o.open()) {
+            var quotas = new HashMap<Integer, Long>();
+            var sql = "SELECT user_id, quota_bytes FROM user_storage WHERE quota_bytes IS NOT NULL";
+            for (var row : connection.createQuery(sql).executeAndFetchTable().rows()) {
+                quotas.put(row.getInteger(0), row.getLong(1));
+            }
+            return quotas;
+        }
+    }
+
+    /* счётчики сбрасывает только один поток, поэтому гонки между UPDATE и INSERT нет */
+    @Override
+    public void saveUsage(Map<Integer, Long> usedBytes) {
+        try (var connection = sql2o.beginTransaction()) {
+            for (var entry : usedBytes.entrySet()) {
+                var updated = connection.createQuery("UPDATE user_storage SET used_bytes = :usedBytes WHERE user_id = :userId")
+                        .addParameter("usedBytes", entry.getValue())
+                        .addParameter("userId", entry.getKey())
+                        .executeUpdate()
+                        .getResult();
+                if (updated == 0) {
+                    connection.createQuery("INSERT INTO user_storage (user_id, used_bytes) VALUES (:userId, :usedBytes)")
+                            .addParameter("userId", entry.getKey())
+                            .addParameter("usedBytes", entry.getValue())
+                            .executeUpdate();
+                }
+            }
+            connection.commit();
+        }
+    }
+}
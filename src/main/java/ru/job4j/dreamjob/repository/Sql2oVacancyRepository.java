@@ -1,24 +1,40 @@
 package ru.job4j.dreamjob.repository;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 import org.sql2o.Sql2o;
+import org.sql2o.Sql2oException;
 import ru.job4j.dreamjob.model.Vacancy;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Repository
+@ConditionalOnProperty(name = "repository.type", havingValue = "sql2o", matchIfMissing = true)
 public class Sql2oVacancyRepository implements VacancyRepository {
 
-    private final Sql2o sql2o;
+    /* Сколько строк драйвер забирает с сервера за один раз при потоковом чтении */
+    static final int FETCH_SIZE = 500;
 
-    public Sql2oVacancyRepository(Sql2o sql2o) {
-        this.sql2o = sql2o;
+    private final ReplicaRouter router;
+
+    public Sql2oVacancyRepository(Sql2o sql2o, @Qualifier("replicaDatabaseClient") Sql2o replica,
+                                    @Value("${datasource.replica.max-lag}") Duration replicaMaxLag) {
+        this.router = new ReplicaRouter(sql2o, replica, replicaMaxLag);
     }
 
     @Override
     public Vacancy save(Vacancy vacancy) {
-        try (var connection = sql2o.open()) {
+        try (var connection = router.forWrite().open()) {
             var sql = """
                       INSERT INTO vacancies(title, description, creation_date, visible, city_id, file_id)
                       VALUES (:title, :description, :creationDate, :visible, :cityId, :fileId)
@@ -38,9 +54,11 @@ public class Sql2oVacancyRepository implements VacancyRepository {
 
     @Override
     public boolean deleteById(int id) {
-        try (var connection = sql2o.open()) {
-            var query = connection.createQuery("DELETE FROM vacancies WHERE id = :id");
-            query.addParameter("id", id);
+        try (var connection = router.forWrite().open()) {
+            var query = connection.createQuery(
+                    "UPDATE vacancies SET deleted_at = :deletedAt WHERE id = :id AND deleted_at IS NULL");
+            query.addParameter("deletedAt", LocalDateTime.now())
+                    .addParameter("id", id);
             var affectedRows = query.executeUpdate().getResult();
             return affectedRows > 0;
         }
@@ -48,12 +66,12 @@ public class Sql2oVacancyRepository implements VacancyRepository {
 
     @Override
     public boolean update(Vacancy vacancy) {
-        try (var connection = sql2o.open()) {
+        try (var connection = router.forWrite().open()) {
             var sql = """
                     UPDATE vacancies
                     SET title = :title, description = :description,
-                        visible = :visible, city_id = :cityId, file_id = :fileId
-                    WHERE id = :id
+                        visible = :visible, city_id = :cityId, file_id = :fileId, version = version + 1
+                    WHERE id = :id AND version = :version AND deleted_at IS NULL
                     """;
             var query = connection.createQuery(sql)
                     .addParameter("title", vacancy.getTitle())
@@ -61,27 +79,103 @@ public class Sql2oVacancyRepository implements VacancyRepository {
                     .addParameter("visible", vacancy.getVisible())
                     .addParameter("cityId", vacancy.getCityId())
                     .addParameter("fileId", vacancy.getFileId())
-                    .addParameter("id", vacancy.getId());
+                    .addParameter("id", vacancy.getId())
+                    .addParameter("version", vacancy.getVersion());
             var affectedRows = query.executeUpdate().getResult();
-            return affectedRows > 0;
+            if (affectedRows == 0) {
+                return false;
+            }
+            vacancy.setVersion(vacancy.getVersion() + 1);
+            return true;
         }
     }
 
     @Override
     public Optional<Vacancy> findById(int id) {
-        try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM vacancies WHERE id = :id");
+        try (var connection = router.forRead().open()) {
+            var query = connection.createQuery("SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies WHERE id = :id AND deleted_at IS NULL");
             query.addParameter("id", id);
-            var vacancy = query.setColumnMappings(Vacancy.COLUMN_MAPPING).executeAndFetchFirst(Vacancy.class);
+            var vacancy = query.executeAndFetchFirst(RowMappers.VACANCY);
             return Optional.ofNullable(vacancy);
         }
     }
 
     @Override
     public Collection<Vacancy> findAll() {
-        try (var connection = sql2o.open()) {
-            var query = connection.createQuery("SELECT * FROM vacancies");
-            return query.setColumnMappings(Vacancy.COLUMN_MAPPING).executeAndFetch(Vacancy.class);
+        try (var connection = router.forRead().open()) {
+            var query = connection.createQuery("SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies WHERE deleted_at IS NULL");
+            return query.executeAndFetch(RowMappers.VACANCY);
+        }
+    }
+
+    @Override
+    public Collection<Vacancy> findPage(int afterId, int limit) {
+        try (var connection = router.forRead().open()) {
+            var query = connection.createQuery("SELECT " + RowMappers.VACANCY_COLUMNS + " FROM vacancies WHERE id > :afterId AND deleted_at IS NULL ORDER BY id LIMIT :limit")
+                    .addParameter("afterId", afterId)
+                    .addParameter("limit", limit);
+            return query.executeAndFetch(RowMappers.VACANCY);
+        }
+    }
+
+    /* окончательно удаляет не больше limit записей, помеченных удалёнными раньше before */
+    @Override
+    public int purgeDeleted(LocalDateTime before, int limit) {
+        try (var connection = router.primary().open()) {
+            var sql = """
+                    DELETE FROM vacancies WHERE id IN (
+                        SELECT id FROM vacancies WHERE deleted_at < :before ORDER BY id LIMIT :limit
+                    )
+                    """;
+            var query = connection.createQuery(sql)
+                    .addParameter("before", before)
+                    .addParameter("limit", limit);
+            return query.executeUpdate().getResult();
+        }
+    }
+
+    @Override
+    public void streamAll(Consumer<Vacancy> action) {
+        streamAll(0, null, null, action);
+    }
+
+    /*
+     * Читает таблицу курсором, не загружая её в память целиком.
+     * PostgreSQL учитывает fetchSize только внутри транзакции (autocommit выключен),
+     * поэтому соединение открывается через beginTransaction.
+     */
+    @Override
+    public void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Vacancy> action) {
+        var sql = new StringBuilder("SELECT ").append(RowMappers.VACANCY_COLUMNS).append(" FROM vacancies WHERE deleted_at IS NULL");
+        var parameters = new ArrayList<>();
+        if (cityId != 0) {
+            sql.append(" AND city_id = ?");
+            parameters.add(cityId);
+        }
+        if (from != null) {
+            sql.append(" AND creation_date >= ?");
+            parameters.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND creation_date < ?");
+            parameters.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY id");
+        try (var connection = router.forRead().beginTransaction();
+             var statement = connection.getJdbcConnection().prepareStatement(
+                     sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    action.accept(RowMappers.VACANCY.handle(resultSet));
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new Sql2oException("Could not stream vacancies", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package ru.job4j.dreamjob.repository;
+
+import java.util.Map;
+
+/* занятое пользователями место и лимиты, выставленные отдельным пользователям вместо общего */
+public interface UserStorageRepository {
+
+    Map<Integer, Long> findQuotas();
+
+    void saveUsage(Map<Integer, Long> usedBytes);
+}
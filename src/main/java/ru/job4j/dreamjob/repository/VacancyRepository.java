@@ -2,19 +2,32 @@ package ru.job4j.dreamjob.repository;
 
 import ru.job4j.dreamjob.model.Vacancy;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface VacancyRepository {
 
     Vacancy save(Vacancy vacancy);
 
+    /* помечает запись удалённой, окончательно её удаляет purgeDeleted */
     boolean deleteById(int id);
 
+    /* false - записи нет или её version уже изменилась; при успехе version у vacancy увеличивается */
     boolean update(Vacancy vacancy);
 
     Optional<Vacancy> findById(int id);
 
     Collection<Vacancy> findAll();
 
+    Collection<Vacancy> findPage(int afterId, int limit);
+
+    int purgeDeleted(LocalDateTime before, int limit);
+
+    void streamAll(Consumer<Vacancy> action);
+
+    /* cityId = 0 - любой город; from включительно, to не включительно, null - без границы */
+    void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Vacancy> action);
+
 }
\ No newline at end of file
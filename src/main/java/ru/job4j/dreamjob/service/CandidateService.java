@@ -3,8 +3,10 @@ package ru.job4j.dreamjob.service;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.Candidate;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CandidateService {
 
@@ -17,4 +19,13 @@ public interface CandidateService {
     Optional<Candidate> findById(int id);
 
     Collection<Candidate> findAll();
+
+    Collection<Candidate> findPage(int afterId, int limit);
+
+    void streamAll(Consumer<Candidate> action);
+
+    /* cityId = 0 - любой город; from включительно, to не включительно, null - без границы */
+    void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Candidate> action);
+
+    long getVersion();
 }
@@ -0,0 +1,66 @@
+package ru.job4j.dreamjob.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.IntUnaryOperator;
+
+/*
+ * Окончательно удаляет вакансии, кандидатов и файлы, помеченные удалёнными дольше purge.retention назад.
+ * Запускается по расписанию purge.cron в часы низкой нагрузки и работает пачками по purge.batch-size,
+ * чтобы не держать длинные транзакции и не нагружать диск разом.
+ */
+@Service
+public class DeletedRecordsPurgeService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeletedRecordsPurgeService.class.getName());
+
+    private final VacancyRepository vacancyRepository;
+
+    private final CandidateRepository candidateRepository;
+
+    private final FileService fileService;
+
+    private final Duration retention;
+
+    private final int batchSize;
+
+    public DeletedRecordsPurgeService(VacancyRepository cachingVacancyRepository,
+                                      CandidateRepository cachingCandidateRepository,
+                                      FileService fileService,
+                                      @Value("${purge.retention}") Duration retention,
+                                      @Value("${purge.batch-size}") int batchSize) {
+        this.vacancyRepository = cachingVacancyRepository;
+        this.candidateRepository = cachingCandidateRepository;
+        this.fileService = fileService;
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${purge.cron}")
+    public void purge() {
+        var before = LocalDateTime.now().minus(retention);
+        /* файлы последними: пока на файл ссылается строка, удалить его нельзя */
+        var vacancies = purgeInBatches(limit -> vacancyRepository.purgeDeleted(before, limit));
+        var candidates = purgeInBatches(limit -> candidateRepository.purgeDeleted(before, limit));
+        var files = purgeInBatches(limit -> fileService.purgeDeleted(before, limit));
+        LOG.info("Purged {} vacancies, {} candidates and {} files deleted before {}", vacancies, candidates, files, before);
+    }
+
+    private int purgeInBatches(IntUnaryOperator batch) {
+        var total = 0;
+        var purged = batchSize;
+        while (purged == batchSize) {
+            purged = batch.applyAsInt(batchSize);
+            total += purged;
+        }
+        return total;
+    }
+}
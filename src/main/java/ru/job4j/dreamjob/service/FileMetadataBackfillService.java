@@ -0,0 +1,93 @@
+package ru.job4j.dreamjob.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.storage.BlobStore;
+import ru.job4j.dreamjob.storage.Checksums;
+import ru.job4j.dreamjob.upload.ImageType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Дописывает size, content_type и sha256 строкам files, сохранённым до появления этих колонок.
+ * Каждый запуск обрабатывает storage.backfill.batch-size строк, читая их содержимое из хранилища.
+ * Новые строки сохраняются уже с метаданными, поэтому после одного полного прохода работа заканчивается;
+ * строки без содержимого пропускаются, о них сообщает StorageScrubberService.
+ */
+@Service
+public class FileMetadataBackfillService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileMetadataBackfillService.class.getName());
+
+    private final FileRepository fileRepository;
+
+    private final BlobStore blobStore;
+
+    private final int batchSize;
+
+    private final AtomicInteger backfilled = new AtomicInteger();
+
+    /* запуски по расписанию не пересекаются, поэтому курсор меняет только один поток */
+    private volatile int afterId;
+
+    private volatile boolean completed;
+
+    public FileMetadataBackfillService(FileRepository sql2oFileRepository,
+                                       BlobStore blobStore,
+                                       @Value("${storage.backfill.batch-size}") int batchSize) {
+        this.fileRepository = sql2oFileRepository;
+        this.blobStore = blobStore;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${storage.backfill.interval}", fixedDelayString = "${storage.backfill.interval}")
+    public void backfill() {
+        if (completed) {
+            return;
+        }
+        var files = fileRepository.findWithoutChecksum(afterId, batchSize);
+        try {
+            for (var file : files) {
+                afterId = file.getId();
+                fill(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (files.size() < batchSize) {
+            completed = true;
+            LOG.info("Backfilled metadata of {} files", backfilled.get());
+        }
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public int getBackfilled() {
+        return backfilled.get();
+    }
+
+    private void fill(File file) throws IOException {
+        var content = blobStore.get(file.getPath());
+        if (content.isEmpty()) {
+            return;
+        }
+        var digest = Checksums.sha256();
+        try (var input = new DigestInputStream(content.get(), digest)) {
+            var signature = input.readNBytes(ImageType.SIGNATURE_LENGTH);
+            var size = signature.length + input.transferTo(OutputStream.nullOutputStream());
+            fileRepository.updateMetadata(file.getId(), size, ImageType.contentTypeOf(signature), Checksums.hex(digest));
+        }
+        backfilled.incrementAndGet();
+    }
+}
@@ -1,15 +1,27 @@
 package ru.job4j.dreamjob.service;
 
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.FileMetadataDto;
 import ru.job4j.dreamjob.model.File;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface FileService {
 
     File save(FileDto fileDto);
 
+    /* содержимое открыто потоком, его нужно прочитать и закрыть */
     Optional<FileDto> getFileById(int id);
 
+    /* length байт содержимого начиная с offset, для запросов с Range */
+    Optional<FileDto> getFileById(int id, long offset, long length);
+
+    /* метаданные из строки files; содержимое не читается */
+    Optional<FileMetadataDto> getMetadataById(int id);
+
+    /* файл только помечается удалённым, с диска его убирает purgeDeleted */
     void deleteById(int id);
+
+    int purgeDeleted(LocalDateTime before, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,180 @@
+package ru.job4j.dreamjob.service;
+
+import net.jcip.annotations.ThreadSafe;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import ru.job4j.dreamjob.storage.BlobStore;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Проверки для оркестратора. Живость - состояние самой JVM, готовность - доступность пула соединений,
+ * хранилища файлов (место на локальном диске или ответ удалённого хранилища) и завершённый запуск приложения.
+ * Результат каждой проверки переиспользуется в течение health.cache-ttl, поэтому частые пробы
+ * не нагружают ни пул, ни диск.
+ */
+@ThreadSafe
+@Service
+public class HealthService {
+
+    public static final String STATUS = "status";
+
+    public static final String UP = "UP";
+
+    public static final String DOWN = "DOWN";
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private static final String PROBE_KEY = "health-probe";
+
+    private final ApplicationAvailability availability;
+
+    private final Optional<DataSource> dataSource;
+
+    private final BlobStore blobStore;
+
+    /* null, если файлы хранятся не на локальном диске */
+    private final Path storageDirectory;
+
+    private final long minFreeSpace;
+
+    private final long ttlNanos;
+
+    private final Report liveness = new Report();
+
+    private final Report readiness = new Report();
+
+    public HealthService(ApplicationAvailability availability,
+                         Optional<DataSource> connectionPool,
+                         BlobStore blobStore,
+                         @Value("${storage.type}") String storageType,
+                         @Value("${file.directory}") String storageDirectory,
+                         @Value("${health.storage.min-free-space}") DataSize minFreeSpace,
+                         @Value("${health.cache-ttl}") Duration ttl) {
+        this.availability = availability;
+        this.dataSource = connectionPool;
+        this.blobStore = blobStore;
+        this.storageDirectory = "local".equals(storageType) ? Path.of(storageDirectory) : null;
+        this.minFreeSpace = minFreeSpace.toBytes();
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /* статус первым ключом, дальше результат каждой проверки: UP или DOWN с пояснением */
+    public Map<String, String> checkLiveness() {
+        return liveness.get(() -> {
+            var checks = new LinkedHashMap<String, String>();
+            checks.put("application", availability.getLivenessState() == LivenessState.CORRECT
+                    ? UP : DOWN + ": " + availability.getLivenessState());
+            checks.put("deadlocks", checkDeadlocks());
+            checks.put("heap", checkHeap());
+            return checks;
+        });
+    }
+
+    public Map<String, String> checkReadiness() {
+        return readiness.get(() -> {
+            var checks = new LinkedHashMap<String, String>();
+            checks.put("startup", availability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC
+                    ? UP : DOWN + ": " + availability.getReadinessState());
+            dataSource.ifPresent(pool -> checks.put("database", checkDatabase(pool)));
+            checks.put("storage", checkStorage());
+            return checks;
+        });
+    }
+
+    private String checkDeadlocks() {
+        var deadlocked = ManagementFactory.getThreadMXBean().findDeadlockedThreads();
+        return deadlocked == null ? UP : DOWN + ": " + deadlocked.length + " deadlocked threads";
+    }
+
+    /* заполненная куча сама по себе не повод перезапускать узел, поэтому это только сведения */
+    private String checkHeap() {
+        var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return UP + ": " + DataSize.ofBytes(heap.getUsed()).toMegabytes() + " of "
+                + DataSize.ofBytes(heap.getMax()).toMegabytes() + " MB used";
+    }
+
+    /*
+     * Если все соединения заняты, проба не встаёт в очередь на maxWait: узел всё равно не примет
+     * новый запрос к БД быстро. Иначе берётся соединение и проверяется драйвером.
+     */
+    private String checkDatabase(DataSource pool) {
+        if (pool instanceof BasicDataSource basic && basic.getNumActive() >= basic.getMaxTotal()) {
+            return DOWN + ": all " + basic.getMaxTotal() + " connections are in use";
+        }
+        try (var connection = pool.getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return DOWN + ": connection is not valid";
+            }
+        } catch (SQLException e) {
+            return DOWN + ": " + e.getMessage();
+        }
+        if (pool instanceof BasicDataSource basic) {
+            return UP + ": " + basic.getNumActive() + " active, " + basic.getNumIdle() + " idle of " + basic.getMaxTotal();
+        }
+        return UP;
+    }
+
+    private String checkStorage() {
+        if (storageDirectory == null) {
+            return checkRemoteStorage();
+        }
+        if (!Files.isDirectory(storageDirectory) || !Files.isWritable(storageDirectory)) {
+            return DOWN + ": " + storageDirectory + " is not a writable directory";
+        }
+        try {
+            var free = Files.getFileStore(storageDirectory).getUsableSpace();
+            var freeMegabytes = DataSize.ofBytes(free).toMegabytes();
+            return free < minFreeSpace ? DOWN + ": only " + freeMegabytes + " MB free" : UP + ": " + freeMegabytes + " MB free";
+        } catch (IOException e) {
+            return DOWN + ": " + e.getMessage();
+        }
+    }
+
+    /* достаточно любого ответа хранилища, в том числе что такого объекта нет */
+    private String checkRemoteStorage() {
+        try {
+            blobStore.size(PROBE_KEY);
+            return UP;
+        } catch (IOException e) {
+            return DOWN + ": " + e.getMessage();
+        }
+    }
+
+    private final class Report {
+
+        private Map<String, String> result;
+
+        private long checkedAt;
+
+        /* под блокировкой, чтобы пачка одновременных проб выполнила проверки один раз */
+        private synchronized Map<String, String> get(Supplier<Map<String, String>> checks) {
+            var now = System.nanoTime();
+            if (result == null || now - checkedAt >= ttlNanos) {
+                var report = new LinkedHashMap<String, String>();
+                var details = checks.get();
+                report.put(STATUS, details.values().stream().allMatch(check -> check.startsWith(UP)) ? UP : DOWN);
+                report.putAll(details);
+                result = Collections.unmodifiableMap(report);
+                checkedAt = now;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.job4j.dreamjob.service;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.match.Bm25Index;
+import ru.job4j.dreamjob.match.Match;
+import ru.job4j.dreamjob.match.Tokenizer;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.CandidateRepository;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.util.List;
+
+/**
+ * Подбор кандидатов к вакансии и вакансий к кандидату по тексту. Вакансии индексируются
+ * по названию и описанию, кандидаты - по имени и описанию; предлагаются только записи
+ * из того же города. Индексы строятся при запуске и дальше обновляются сервисами
+ * вакансий и кандидатов после каждой успешной записи. Скрытые вакансии не предлагаются.
+ */
+@ThreadSafe
+@Service
+public class MatchingService {
+
+    private final Bm25Index vacancies;
+
+    private final Bm25Index candidates;
+
+    public MatchingService(VacancyRepository cachingVacancyRepository,
+                           CandidateRepository cachingCandidateRepository,
+                           @Value("${matching.parallel-threshold}") int parallelThreshold) {
+        var shards = Runtime.getRuntime().availableProcessors();
+        this.vacancies = new Bm25Index(shards, parallelThreshold);
+        this.candidates = new Bm25Index(shards, parallelThreshold);
+        cachingVacancyRepository.streamAll(this::index);
+        cachingCandidateRepository.streamAll(this::index);
+    }
+
+    public void index(Vacancy vacancy) {
+        if (vacancy.getVisible()) {
+            vacancies.put(vacancy.getId(), vacancy.getCityId(), Tokenizer.tokenize(vacancy.getTitle(), vacancy.getDescription()));
+        } else {
+            vacancies.remove(vacancy.getId());
+        }
+    }
+
+    public void index(Candidate candidate) {
+        candidates.put(candidate.getId(), candidate.getCityId(), Tokenizer.tokenize(candidate.getName(), candidate.getDescription()));
+    }
+
+    public void removeVacancy(int id) {
+        vacancies.remove(id);
+    }
+
+    public void removeCandidate(int id) {
+        candidates.remove(id);
+    }
+
+    /* id и оценки кандидатов, лучшие первыми */
+    public List<Match> findCandidates(Vacancy vacancy, int limit) {
+        return candidates.search(Tokenizer.tokenize(vacancy.getTitle(), vacancy.getDescription()), vacancy.getCityId(), limit);
+    }
+
+    public List<Match> findVacancies(Candidate candidate, int limit) {
+        return vacancies.search(Tokenizer.tokenize(candidate.getName(), candidate.getDescription()), candidate.getCityId(), limit);
+    }
+}
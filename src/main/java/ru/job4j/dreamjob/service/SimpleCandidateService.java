@@ -6,8 +6,11 @@ import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.Candidate;
 import ru.job4j.dreamjob.repository.CandidateRepository;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @ThreadSafe
 @Service
@@ -17,15 +20,25 @@ public class SimpleCandidateService implements CandidateService {
 
     private final FileService fileService;
 
-    public SimpleCandidateService(CandidateRepository sql2oCandidateRepository, FileService fileService) {
-        this.candidateRepository = sql2oCandidateRepository;
+    private final MatchingService matchingService;
+
+    /* увеличивается при каждой записи, по нему кэшируются отрисованные списки */
+    private final AtomicLong version = new AtomicLong();
+
+    public SimpleCandidateService(CandidateRepository cachingCandidateRepository, FileService fileService,
+                                  MatchingService matchingService) {
+        this.candidateRepository = cachingCandidateRepository;
         this.fileService = fileService;
+        this.matchingService = matchingService;
     }
 
     @Override
     public Candidate save(Candidate candidate, FileDto image) {
         saveNewFile(candidate, image);
-        return candidateRepository.save(candidate);
+        var saved = candidateRepository.save(candidate);
+        version.incrementAndGet();
+        matchingService.index(saved);
+        return saved;
     }
 
     private void saveNewFile(Candidate candidate, FileDto image) {
@@ -39,6 +52,8 @@ public class SimpleCandidateService implements CandidateService {
         var fileOptional = findById(id);
         if (fileOptional.isPresent()) {
             rsl = candidateRepository.deleteById(id);
+            version.incrementAndGet();
+            matchingService.removeCandidate(id);
             fileService.deleteById(fileOptional.get().getFileId());
         }
         return rsl;
@@ -46,15 +61,25 @@ public class SimpleCandidateService implements CandidateService {
 
     @Override
     public boolean update(Candidate candidate, FileDto image) {
-        var isNewFileEmpty = image.getContent().length == 0;
+        var isNewFileEmpty = image.getSize() == 0;
         if (isNewFileEmpty) {
-            return candidateRepository.update(candidate);
+            var isUpdated = candidateRepository.update(candidate);
+            version.incrementAndGet();
+            if (isUpdated) {
+                matchingService.index(candidate);
+            }
+            return isUpdated;
         }
         /* если передан новый не пустой файл, то старый удаляем, а новый сохраняем */
         var oldFileId = candidate.getFileId();
         saveNewFile(candidate, image);
         var isUpdated = candidateRepository.update(candidate);
-        fileService.deleteById(oldFileId);
+        version.incrementAndGet();
+        if (isUpdated) {
+            matchingService.index(candidate);
+        }
+        /* при конфликте версий запись ссылается на старый файл, лишним оказывается новый */
+        fileService.deleteById(isUpdated ? oldFileId : candidate.getFileId());
         return isUpdated;
     }
 
@@ -67,4 +92,24 @@ public class SimpleCandidateService implements CandidateService {
     public Collection<Candidate> findAll() {
         return candidateRepository.findAll();
     }
+
+    @Override
+    public Collection<Candidate> findPage(int afterId, int limit) {
+        return candidateRepository.findPage(afterId, limit);
+    }
+
+    @Override
+    public void streamAll(Consumer<Candidate> action) {
+        candidateRepository.streamAll(action);
+    }
+
+    @Override
+    public void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Candidate> action) {
+        candidateRepository.streamAll(cityId, from, to, action);
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
 }
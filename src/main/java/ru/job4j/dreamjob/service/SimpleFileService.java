@@ -1,15 +1,21 @@
 package ru.job4j.dreamjob.service;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.stereotype.Service;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.FileMetadataDto;
 import ru.job4j.dreamjob.model.File;
 import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.storage.BlobStore;
+import ru.job4j.dreamjob.storage.Checksums;
+import ru.job4j.dreamjob.upload.ImageType;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 @Service
@@ -17,74 +23,128 @@ public class SimpleFileService implements FileService {
 
     private final FileRepository fileRepository;
 
-    private final String storageDirectory;
+    private final BlobStore blobStore;
 
-    public SimpleFileService(FileRepository sql2oFileRepository,
-                             @Value("${file.directory}") String storageDirectory) {
+    private final StorageQuotaService storageQuotaService;
+
+    public SimpleFileService(FileRepository sql2oFileRepository, BlobStore blobStore, StorageQuotaService storageQuotaService) {
         this.fileRepository = sql2oFileRepository;
-        this.storageDirectory = storageDirectory;
-        createStorageDirectory(storageDirectory);
+        this.blobStore = blobStore;
+        this.storageQuotaService = storageQuotaService;
     }
 
-    private void createStorageDirectory(String path) {
-        try {
-            Files.createDirectories(Path.of(path));
+    /*
+     * место резервируется до записи в хранилище и возвращается, если сохранить файл не удалось;
+     * содержимое читается одним потоком: по нему же считается контрольная сумма,
+     * а формат, если его не определил UploadValidator, - по первым байтам
+     */
+    @Override
+    public File save(FileDto fileDto) {
+        var key = UUID.randomUUID() + fileDto.getName();
+        var size = fileDto.getSize();
+        storageQuotaService.reserve(fileDto.getUserId(), size);
+        try (var input = new BufferedInputStream(fileDto.getContent().getInputStream())) {
+            var contentType = fileDto.getContentType();
+            if (contentType == null) {
+                input.mark(ImageType.SIGNATURE_LENGTH);
+                contentType = ImageType.contentTypeOf(input.readNBytes(ImageType.SIGNATURE_LENGTH));
+                input.reset();
+            }
+            var digest = Checksums.sha256();
+            blobStore.put(key, new DigestInputStream(input, digest), size);
+            var file = new File(fileDto.getName(), key);
+            file.setUserId(fileDto.getUserId());
+            file.setSize(size);
+            file.setContentType(contentType);
+            file.setSha256(Checksums.hex(digest));
+            return fileRepository.save(file);
         } catch (IOException e) {
+            storageQuotaService.release(fileDto.getUserId(), size);
             throw new RuntimeException(e);
+        } catch (RuntimeException e) {
+            storageQuotaService.release(fileDto.getUserId(), size);
+            throw e;
         }
     }
 
+    /* строка без содержимого в хранилище отдаётся как отсутствующий файл; поток закрывает тот, кто его читает */
     @Override
-    public File save(FileDto fileDto) {
-        var path = getNewFilePath(fileDto.getName());
-        writeFileBytes(path, fileDto.getContent());
-        return fileRepository.save(new File(fileDto.getName(), path));
-    }
-
-    private String getNewFilePath(String sourceName) {
-        return storageDirectory + java.io.File.separator + UUID.randomUUID() + sourceName;
-    }
-
-    private void writeFileBytes(String path, byte[] content) {
+    public Optional<FileDto> getFileById(int id) {
+        var fileOptional = fileRepository.findById(id);
+        if (fileOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        var file = fileOptional.get();
         try {
-            Files.write(Path.of(path), content);
+            var size = sizeOf(file);
+            if (size.isEmpty()) {
+                return Optional.empty();
+            }
+            return blobStore.get(file.getPath())
+                    .map(input -> new FileDto(file.getName(), new InputStreamResource(input), size.getAsLong()));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     @Override
-    public Optional<FileDto> getFileById(int id) {
+    public Optional<FileDto> getFileById(int id, long offset, long length) {
         var fileOptional = fileRepository.findById(id);
         if (fileOptional.isEmpty()) {
             return Optional.empty();
         }
-        var content = readFileAsBytes(fileOptional.get().getPath());
-        return Optional.of(new FileDto(fileOptional.get().getName(), content));
+        var file = fileOptional.get();
+        try {
+            return blobStore.get(file.getPath(), offset, length)
+                    .map(input -> new FileDto(file.getName(), new InputStreamResource(input), length));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    private byte[] readFileAsBytes(String path) {
+    @Override
+    public Optional<FileMetadataDto> getMetadataById(int id) {
+        var fileOptional = fileRepository.findById(id);
+        if (fileOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        var file = fileOptional.get();
         try {
-            return Files.readAllBytes(Path.of(path));
+            var size = sizeOf(file);
+            if (size.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new FileMetadataDto(file.getName(), size.getAsLong(), file.getContentType(),
+                    file.getSha256(), file.getCreatedAt()));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /* у строк, которые ещё не дополнил FileMetadataBackfillService, размер узнаётся у хранилища без чтения содержимого */
+    private OptionalLong sizeOf(File file) throws IOException {
+        return file.getSha256() != null ? OptionalLong.of(file.getSize()) : blobStore.size(file.getPath());
+    }
+
     @Override
     public void deleteById(int id) {
         var fileOptional = fileRepository.findById(id);
-        if (fileOptional.isPresent()) {
-            deleteFile(fileOptional.get().getPath());
-            fileRepository.deleteById(id);
+        if (fileOptional.isPresent() && fileRepository.softDeleteById(id)) {
+            storageQuotaService.release(fileOptional.get().getUserId(), fileOptional.get().getSize());
         }
     }
 
-    private void deleteFile(String path) {
-        try {
-            Files.deleteIfExists(Path.of(path));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    @Override
+    public int purgeDeleted(LocalDateTime before, int limit) {
+        var files = fileRepository.findDeleted(before, limit);
+        for (var file : files) {
+            try {
+                blobStore.delete(file.getPath());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            fileRepository.deleteById(file.getId());
         }
+        return files.size();
     }
-}
\ No newline at end of file
+}
@@ -6,8 +6,11 @@ import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.Vacancy;
 import ru.job4j.dreamjob.repository.VacancyRepository;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @ThreadSafe
 @Service
@@ -17,16 +20,30 @@ public class SimpleVacancyService implements VacancyService {
 
     private final FileService fileService;
 
-    public SimpleVacancyService(VacancyRepository sql2oVacancyRepository, FileService fileService) {
-        this.vacancyRepository = sql2oVacancyRepository;
+    private final MatchingService matchingService;
+
+    private final SuggestService suggestService;
+
+    /* увеличивается при каждой записи, по нему кэшируются отрисованные списки */
+    private final AtomicLong version = new AtomicLong();
+
+    public SimpleVacancyService(VacancyRepository cachingVacancyRepository, FileService fileService,
+                                MatchingService matchingService, SuggestService suggestService) {
+        this.vacancyRepository = cachingVacancyRepository;
         this.fileService = fileService;
+        this.matchingService = matchingService;
+        this.suggestService = suggestService;
     }
 
 
     @Override
     public Vacancy save(Vacancy vacancy, FileDto image) {
         saveNewFile(vacancy, image);
-        return vacancyRepository.save(vacancy);
+        var saved = vacancyRepository.save(vacancy);
+        version.incrementAndGet();
+        matchingService.index(saved);
+        suggestService.index(saved);
+        return saved;
     }
 
     private void saveNewFile(Vacancy vacancy, FileDto image) {
@@ -40,6 +57,9 @@ public class SimpleVacancyService implements VacancyService {
         var fileOptional = findById(id);
         if (fileOptional.isPresent()) {
             rsl = vacancyRepository.deleteById(id);
+            version.incrementAndGet();
+            matchingService.removeVacancy(id);
+            suggestService.removeVacancy(id);
             fileService.deleteById(fileOptional.get().getFileId());
         }
         return rsl;
@@ -47,15 +67,27 @@ public class SimpleVacancyService implements VacancyService {
 
     @Override
     public boolean update(Vacancy vacancy, FileDto image) {
-        var isNewFileEmpty = image.getContent().length == 0;
+        var isNewFileEmpty = image.getSize() == 0;
         if (isNewFileEmpty) {
-            return vacancyRepository.update(vacancy);
+            var isUpdated = vacancyRepository.update(vacancy);
+            version.incrementAndGet();
+            if (isUpdated) {
+                matchingService.index(vacancy);
+                suggestService.index(vacancy);
+            }
+            return isUpdated;
         }
         /* если передан новый не пустой файл, то старый удаляем, а новый сохраняем */
         var oldFileId = vacancy.getFileId();
         saveNewFile(vacancy, image);
         var isUpdated = vacancyRepository.update(vacancy);
-        fileService.deleteById(oldFileId);
+        version.incrementAndGet();
+        if (isUpdated) {
+            matchingService.index(vacancy);
+            suggestService.index(vacancy);
+        }
+        /* при конфликте версий запись ссылается на старый файл, лишним оказывается новый */
+        fileService.deleteById(isUpdated ? oldFileId : vacancy.getFileId());
         return isUpdated;
     }
 
@@ -68,4 +100,24 @@ public class SimpleVacancyService implements VacancyService {
     public Collection<Vacancy> findAll() {
         return vacancyRepository.findAll();
     }
+
+    @Override
+    public Collection<Vacancy> findPage(int afterId, int limit) {
+        return vacancyRepository.findPage(afterId, limit);
+    }
+
+    @Override
+    public void streamAll(Consumer<Vacancy> action) {
+        vacancyRepository.streamAll(action);
+    }
+
+    @Override
+    public void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Vacancy> action) {
+        vacancyRepository.streamAll(cityId, from, to, action);
+    }
+
+    @Override
+    public long getVersion() {
+        return version.get();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package ru.job4j.dreamjob.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.repository.UserStorageRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Место, занятое файлами каждого пользователя. Проверка при загрузке - это сравнение и CAS
+ * счётчика в памяти, без SUM(size) по таблице files. Изменившиеся счётчики раз в
+ * storage.quota.flush-interval записываются в user_storage, оттуда же перечитываются лимиты,
+ * выставленные отдельным пользователям. При запуске счётчики заново считаются по files:
+ * последние изменения перед остановкой могли не попасть в user_storage.
+ * Место освобождается, когда файл помечается удалённым. Файлы без владельца не учитываются.
+ */
+@Service
+public class StorageQuotaService {
+
+    private final FileRepository fileRepository;
+
+    private final UserStorageRepository userStorageRepository;
+
+    private final long defaultQuota;
+
+    private final Map<Integer, AtomicLong> usedBytes = new ConcurrentHashMap<>();
+
+    /* пользователи, чьи счётчики изменились после последней записи в user_storage */
+    private final Set<Integer> changed = ConcurrentHashMap.newKeySet();
+
+    private volatile Map<Integer, Long> quotas;
+
+    public StorageQuotaService(FileRepository sql2oFileRepository,
+                               UserStorageRepository sql2oUserStorageRepository,
+                               @Value("${storage.quota.per-user}") DataSize defaultQuota) {
+        this.fileRepository = sql2oFileRepository;
+        this.userStorageRepository = sql2oUserStorageRepository;
+        this.defaultQuota = defaultQuota.toBytes();
+        fileRepository.sumSizeByUser().forEach((userId, size) -> usedBytes.put(userId, new AtomicLong(size)));
+        changed.addAll(usedBytes.keySet());
+        this.quotas = userStorageRepository.findQuotas();
+    }
+
+    /* IllegalArgumentException с сообщением для пользователя, если файл не помещается в лимит */
+    public void reserve(int userId, long bytes) {
+        if (userId == 0) {
+            return;
+        }
+        var quota = quotas.getOrDefault(userId, defaultQuota);
+        var used = usedBytes.computeIfAbsent(userId, id -> new AtomicLong());
+        long current;
+        do {
+            current = used.get();
+            if (current + bytes > quota) {
+                throw new IllegalArgumentException("Недостаточно места для файла: занято %d КБ из %d КБ"
+                        .formatted(current / 1024, quota / 1024));
+            }
+        } while (!used.compareAndSet(current, current + bytes));
+        changed.add(userId);
+    }
+
+    public void release(int userId, long bytes) {
+        if (userId == 0) {
+            return;
+        }
+        usedBytes.computeIfAbsent(userId, id -> new AtomicLong()).addAndGet(-bytes);
+        changed.add(userId);
+    }
+
+    public long getUsedBytes(int userId) {
+        var used = usedBytes.get(userId);
+        return used == null ? 0 : used.get();
+    }
+
+    @PreDestroy
+    @Scheduled(initialDelayString = "${storage.quota.flush-interval}", fixedDelayString = "${storage.quota.flush-interval}")
+    public void flush() {
+        var snapshot = new HashMap<Integer, Long>();
+        for (var iterator = changed.iterator(); iterator.hasNext();) {
+            var userId = iterator.next();
+            iterator.remove();
+            snapshot.put(userId, usedBytes.get(userId).get());
+        }
+        if (!snapshot.isEmpty()) {
+            try {
+                userStorageRepository.saveUsage(snapshot);
+            } catch (RuntimeException e) {
+                changed.addAll(snapshot.keySet());
+                throw e;
+            }
+        }
+        quotas = userStorageRepository.findQuotas();
+    }
+}
@@ -0,0 +1,188 @@
+package ru.job4j.dreamjob.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.dto.StorageScrubStatistics;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.repository.ScrubCursorRepository;
+import ru.job4j.dreamjob.storage.BlobEntry;
+import ru.job4j.dreamjob.storage.BlobStore;
+import ru.job4j.dreamjob.storage.Checksums;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Сверяет таблицу files с содержимым хранилища. Сбой между записью содержимого и строки,
+ * или между удалением строки и содержимого, оставляет расхождения в обе стороны:
+ * <ul>
+ *     <li>строка без содержимого - только сообщается в лог и счётчики, восстановить содержимое нечем;</li>
+ *     <li>содержимое, размер или SHA-256 которого не совпадает с files (если storage.scrub.verify-checksums=true) -
+ *     тоже только сообщается: какая из копий верна, неизвестно;</li>
+ *     <li>содержимое без строки старше storage.scrub.grace-period - сообщается и при storage.scrub.repair=true удаляется.
+ *     Более свежие объекты пропускаются: это может быть загрузка, строка которой ещё не сохранена.</li>
+ * </ul>
+ * Каждый запуск проверяет не больше storage.scrub.batch-size строк и объектов не быстрее storage.scrub.rate в секунду,
+ * а позиции сохраняет, поэтому проход по большому хранилищу растягивается на много запусков и переживает перезапуск.
+ */
+@Service
+public class StorageScrubberService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StorageScrubberService.class.getName());
+
+    static final String ROWS_CURSOR = "files";
+
+    static final String BLOBS_CURSOR = "blobs";
+
+    private final FileRepository fileRepository;
+
+    private final BlobStore blobStore;
+
+    private final ScrubCursorRepository cursorRepository;
+
+    private final int batchSize;
+
+    private final Duration gracePeriod;
+
+    private final boolean repair;
+
+    private final boolean verifyChecksums;
+
+    /* 0 - без ограничения скорости */
+    private final long pauseNanos;
+
+    private final AtomicLong checkedRows = new AtomicLong();
+
+    private final AtomicLong checkedBlobs = new AtomicLong();
+
+    private final AtomicLong missingBlobs = new AtomicLong();
+
+    private final AtomicLong checksumMismatches = new AtomicLong();
+
+    private final AtomicLong unreferencedBlobs = new AtomicLong();
+
+    private final AtomicLong deletedBlobs = new AtomicLong();
+
+    private final AtomicLong completedPasses = new AtomicLong();
+
+    private volatile Instant lastRun;
+
+    public StorageScrubberService(FileRepository sql2oFileRepository,
+                                  BlobStore blobStore,
+                                  ScrubCursorRepository sql2oScrubCursorRepository,
+                                  @Value("${storage.scrub.batch-size}") int batchSize,
+                                  @Value("${storage.scrub.grace-period}") Duration gracePeriod,
+                                  @Value("${storage.scrub.repair}") boolean repair,
+                                  @Value("${storage.scrub.verify-checksums}") boolean verifyChecksums,
+                                  @Value("${storage.scrub.rate}") int rate) {
+        this.fileRepository = sql2oFileRepository;
+        this.blobStore = blobStore;
+        this.cursorRepository = sql2oScrubCursorRepository;
+        this.batchSize = batchSize;
+        this.gracePeriod = gracePeriod;
+        this.repair = repair;
+        this.verifyChecksums = verifyChecksums;
+        this.pauseNanos = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+    }
+
+    @Scheduled(initialDelayString = "${storage.scrub.interval}", fixedDelayString = "${storage.scrub.interval}")
+    public void scrub() {
+        try {
+            var rowsCompleted = scrubRows();
+            var blobsCompleted = scrubBlobs();
+            if (rowsCompleted && blobsCompleted) {
+                completedPasses.incrementAndGet();
+            }
+            lastRun = Instant.now();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public StorageScrubStatistics getStatistics() {
+        return new StorageScrubStatistics(checkedRows.get(), checkedBlobs.get(), missingBlobs.get(),
+                checksumMismatches.get(), unreferencedBlobs.get(), deletedBlobs.get(), completedPasses.get(), lastRun);
+    }
+
+    /* true, если дошли до конца таблицы и курсор вернулся в начало */
+    private boolean scrubRows() throws IOException {
+        var afterId = cursorRepository.findPosition(ROWS_CURSOR).map(Integer::parseInt).orElse(0);
+        var files = fileRepository.findPage(afterId, batchSize);
+        for (var file : files) {
+            pace();
+            var size = blobStore.size(file.getPath());
+            if (size.isEmpty()) {
+                missingBlobs.incrementAndGet();
+                LOG.warn("File {} \"{}\" has no content at {}", file.getId(), file.getName(), file.getPath());
+            } else if (verifyChecksums && file.getSha256() != null && !matches(file, size.getAsLong())) {
+                checksumMismatches.incrementAndGet();
+                LOG.warn("File {} \"{}\" content at {} does not match its size or checksum",
+                        file.getId(), file.getName(), file.getPath());
+            }
+            checkedRows.incrementAndGet();
+            afterId = file.getId();
+        }
+        var completed = files.size() < batchSize;
+        cursorRepository.savePosition(ROWS_CURSOR, completed ? "0" : String.valueOf(afterId));
+        return completed;
+    }
+
+    /* размер сверяется первым: он уже известен, а для SHA-256 содержимое нужно прочитать целиком */
+    private boolean matches(File file, long size) throws IOException {
+        if (size != file.getSize()) {
+            return false;
+        }
+        var content = blobStore.get(file.getPath());
+        return content.isEmpty() || Checksums.sha256(content.get()).equals(file.getSha256());
+    }
+
+    private boolean scrubBlobs() throws IOException {
+        var afterKey = cursorRepository.findPosition(BLOBS_CURSOR).orElse("");
+        var blobs = blobStore.list(afterKey, batchSize);
+        var paths = new ArrayList<String>();
+        for (var blob : blobs) {
+            paths.addAll(blobStore.referencePaths(blob.getKey()));
+        }
+        var referenced = fileRepository.findExistingPaths(paths);
+        var before = Instant.now().minus(gracePeriod);
+        for (var blob : blobs) {
+            pace();
+            checkedBlobs.incrementAndGet();
+            afterKey = blob.getKey();
+            var isReferenced = blobStore.referencePaths(blob.getKey()).stream().anyMatch(referenced::contains);
+            if (!isReferenced && blob.getLastModified().isBefore(before)) {
+                unreferenced(blob);
+            }
+        }
+        var completed = blobs.size() < batchSize;
+        cursorRepository.savePosition(BLOBS_CURSOR, completed ? "" : afterKey);
+        return completed;
+    }
+
+    private void unreferenced(BlobEntry blob) throws IOException {
+        unreferencedBlobs.incrementAndGet();
+        if (!repair) {
+            LOG.warn("Blob {} ({} bytes) is not referenced by any file", blob.getKey(), blob.getSize());
+            return;
+        }
+        blobStore.delete(blob.getKey());
+        deletedBlobs.incrementAndGet();
+        LOG.warn("Deleted blob {} ({} bytes) not referenced by any file", blob.getKey(), blob.getSize());
+    }
+
+    private void pace() {
+        if (pauseNanos > 0) {
+            LockSupport.parkNanos(pauseNanos);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.job4j.dreamjob.service;
+
+import net.jcip.annotations.ThreadSafe;
+import org.springframework.stereotype.Service;
+import ru.job4j.dreamjob.match.PrefixIndex;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Подсказки при вводе названия вакансии и города. Оба индекса держатся в памяти и
+ * на запрос подсказки в базу не ходят. Названия опубликованных вакансий строятся при запуске
+ * и обновляются сервисом вакансий после каждой записи; города - справочник, который
+ * из приложения не меняется, поэтому читаются один раз.
+ * Если по запросу ничего не нашлось, он повторяется в русской раскладке.
+ */
+@ThreadSafe
+@Service
+public class SuggestService {
+
+    private final PrefixIndex titles = new PrefixIndex();
+
+    private final PrefixIndex cityNames = new PrefixIndex();
+
+    /* id опубликованной вакансии -> название в индексе, чтобы при изменении убрать прежнее */
+    private final Map<Integer, String> indexedTitles = new ConcurrentHashMap<>();
+
+    private final Map<String, City> cities = new ConcurrentHashMap<>();
+
+    public SuggestService(VacancyRepository cachingVacancyRepository, CityService cityService) {
+        cachingVacancyRepository.streamAll(this::index);
+        for (var city : cityService.findAll()) {
+            cityNames.add(city.getName());
+            cities.put(PrefixIndex.normalize(city.getName()), city);
+        }
+    }
+
+    public void index(Vacancy vacancy) {
+        var title = vacancy.getVisible() ? vacancy.getTitle() : null;
+        replace(vacancy.getId(), title);
+    }
+
+    public void removeVacancy(int id) {
+        replace(id, null);
+    }
+
+    /* замена одного названия другим не должна переплетаться с правкой той же вакансии в другом потоке */
+    private synchronized void replace(int id, String title) {
+        var previous = title == null ? indexedTitles.remove(id) : indexedTitles.put(id, title);
+        if (Objects.equals(previous, title)) {
+            return;
+        }
+        if (previous != null) {
+            titles.remove(previous);
+        }
+        if (title != null) {
+            titles.add(title);
+        }
+    }
+
+    public List<String> suggestTitles(String prefix, int limit) {
+        var found = titles.find(prefix, limit);
+        return found.isEmpty() ? titles.find(PrefixIndex.toCyrillicLayout(prefix), limit) : found;
+    }
+
+    public List<City> suggestCities(String prefix, int limit) {
+        var found = cityNames.find(prefix, limit);
+        if (found.isEmpty()) {
+            found = cityNames.find(PrefixIndex.toCyrillicLayout(prefix), limit);
+        }
+        return found.stream()
+                .map(name -> Optional.ofNullable(cities.get(PrefixIndex.normalize(name))))
+                .flatMap(Optional::stream)
+                .toList();
+    }
+}
@@ -3,8 +3,10 @@ package ru.job4j.dreamjob.service;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.Vacancy;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface VacancyService {
 
@@ -17,4 +19,13 @@ public interface VacancyService {
     Optional<Vacancy> findById(int id);
 
     Collection<Vacancy> findAll();
+
+    Collection<Vacancy> findPage(int afterId, int limit);
+
+    void streamAll(Consumer<Vacancy> action);
+
+    /* cityId = 0 - любой город; from включительно, to не включительно, null - без границы */
+    void streamAll(int cityId, LocalDateTime from, LocalDateTime to, Consumer<Vacancy> action);
+
+    long getVersion();
 }
@@ -0,0 +1,30 @@
+package ru.job4j.dreamjob.storage;
+
+import java.time.Instant;
+
+public class BlobEntry {
+
+    private final String key;
+
+    private final long size;
+
+    private final Instant lastModified;
+
+    public BlobEntry(String key, long size, Instant lastModified) {
+        this.key = key;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.job4j.dreamjob.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Хранилище содержимого файлов. Ключ - строка, которая записывается в files.path.
+ * Отсутствующий объект - это пустой результат, а не исключение; IOException означает,
+ * что хранилище недоступно или ответило ошибкой.
+ */
+public interface BlobStore {
+
+    /* content читается ровно на length байт; закрывает его вызывающий */
+    void put(String key, InputStream content, long length) throws IOException;
+
+    Optional<InputStream> get(String key) throws IOException;
+
+    /* length байт начиная с offset; у конца объекта байт может оказаться меньше */
+    Optional<InputStream> get(String key, long offset, long length) throws IOException;
+
+    OptionalLong size(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /* до limit объектов с ключом больше afterKey, по возрастанию ключа */
+    List<BlobEntry> list(String afterKey, int limit) throws IOException;
+
+    /* значения files.path, которыми строки могут ссылаться на объект с этим ключом */
+    default List<String> referencePaths(String key) {
+        return List.of(key);
+    }
+}
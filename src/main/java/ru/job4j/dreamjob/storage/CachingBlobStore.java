@@ -0,0 +1,190 @@
+package ru.job4j.dreamjob.storage;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Локальный дисковый кэш перед удалённым хранилищем для часто читаемых файлов - картинок вакансий и кандидатов.
+ * Объект целиком попадает в кэш при первом чтении, время изменения файла служит отметкой последнего чтения.
+ * Когда кэш больше maxBytes, удаляются давно не читанные файлы. Запись идёт сразу в удалённое хранилище,
+ * частичные чтения некэшированных объектов - тоже.
+ */
+@ThreadSafe
+public class CachingBlobStore implements BlobStore {
+
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final BlobStore remote;
+
+    private final Path directory;
+
+    private final long maxBytes;
+
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    public CachingBlobStore(BlobStore remote, Path directory, long maxBytes) {
+        this.remote = remote;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            try (var files = Files.list(directory)) {
+                for (var file : (Iterable<Path>) files::iterator) {
+                    if (file.getFileName().toString().endsWith(TEMPORARY_SUFFIX)) {
+                        Files.deleteIfExists(file);
+                    } else {
+                        usedBytes.addAndGet(Files.size(file));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length) throws IOException {
+        remote.put(key, content, length);
+    }
+
+    @Override
+    public Optional<InputStream> get(String key) throws IOException {
+        var cached = cached(key);
+        var content = open(cached);
+        if (content.isPresent()) {
+            return content;
+        }
+        var remoteContent = remote.get(key);
+        if (remoteContent.isEmpty()) {
+            return remoteContent;
+        }
+        var temporary = Files.createTempFile(directory, "blob", TEMPORARY_SUFFIX);
+        try (var input = remoteContent.get()) {
+            var size = Files.copy(input, temporary, StandardCopyOption.REPLACE_EXISTING);
+            /* параллельный промах по тому же ключу мог уже положить файл; учитываем объём один раз */
+            if (!Files.exists(cached)) {
+                Files.move(temporary, cached, StandardCopyOption.ATOMIC_MOVE);
+                usedBytes.addAndGet(size);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        evictIfFull();
+        var stored = open(cached);
+        return stored.isPresent() ? stored : remote.get(key);
+    }
+
+    @Override
+    public Optional<InputStream> get(String key, long offset, long length) throws IOException {
+        var cached = cached(key);
+        try {
+            return Optional.of(LocalBlobStore.readRange(cached, offset, length));
+        } catch (NoSuchFileException e) {
+            return remote.get(key, offset, length);
+        }
+    }
+
+    @Override
+    public OptionalLong size(String key) throws IOException {
+        try {
+            return OptionalLong.of(Files.size(cached(key)));
+        } catch (NoSuchFileException e) {
+            return remote.size(key);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        remote.delete(key);
+        var cached = cached(key);
+        try {
+            var size = Files.size(cached);
+            if (Files.deleteIfExists(cached)) {
+                usedBytes.addAndGet(-size);
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        }
+    }
+
+    @Override
+    public List<BlobEntry> list(String afterKey, int limit) throws IOException {
+        return remote.list(afterKey, limit);
+    }
+
+    @Override
+    public List<String> referencePaths(String key) {
+        return remote.referencePaths(key);
+    }
+
+    /* открытие и отметка чтения; файл могли вытеснить между проверкой и открытием */
+    private Optional<InputStream> open(Path cached) throws IOException {
+        try {
+            var content = Files.newInputStream(cached);
+            Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(content);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    /* вытесняет до 90% объёма, чтобы не чистить кэш на каждой следующей загрузке */
+    private synchronized void evictIfFull() throws IOException {
+        if (usedBytes.get() <= maxBytes) {
+            return;
+        }
+        try (var files = Files.list(directory)) {
+            var oldestFirst = files.filter(file -> !file.getFileName().toString().endsWith(TEMPORARY_SUFFIX))
+                    .sorted(Comparator.comparing(CachingBlobStore::lastModified))
+                    .toList();
+            for (var file : oldestFirst) {
+                if (usedBytes.get() <= maxBytes / 10 * 9) {
+                    break;
+                }
+                try {
+                    var size = Files.size(file);
+                    if (Files.deleteIfExists(file)) {
+                        usedBytes.addAndGet(-size);
+                    }
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /* ключ может содержать любые символы, поэтому имя файла в кэше - его хэш */
+    private Path cached(String key) {
+        try {
+            var hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(hash));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.job4j.dreamjob.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/* SHA-256 содержимого в том виде, в котором он хранится в files.sha256 */
+public final class Checksums {
+
+    private Checksums() {
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /* дочитывает content до конца и закрывает его */
+    public static String sha256(InputStream content) throws IOException {
+        var digest = sha256();
+        try (var input = new DigestInputStream(content, digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return hex(digest);
+    }
+}
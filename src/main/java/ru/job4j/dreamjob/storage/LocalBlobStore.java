@@ -0,0 +1,131 @@
+package ru.job4j.dreamjob.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Файлы на локальном диске в каталоге file.directory.
+ * Строки, сохранённые до появления хранилищ, содержат путь вместе с каталогом, такие ключи используются как есть.
+ */
+public class LocalBlobStore implements BlobStore {
+
+    private final Path directory;
+
+    public LocalBlobStore(Path directory) {
+        this.directory = directory;
+        createDirectory(directory);
+    }
+
+    /* обычно каталог уже есть: одна проверка вместо попытки создания, которая кончается исключением */
+    private static void createDirectory(Path directory) {
+        if (Files.isDirectory(directory)) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length) throws IOException {
+        Files.copy(content, resolve(key));
+    }
+
+    @Override
+    public Optional<InputStream> get(String key) throws IOException {
+        try {
+            return Optional.of(Files.newInputStream(resolve(key)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Optional<InputStream> get(String key, long offset, long length) throws IOException {
+        try {
+            return Optional.of(readRange(resolve(key), offset, length));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    /* диапазоны читаются целиком в память: это куски картинок и документов, а не файлы целиком */
+    static InputStream readRange(Path path, long offset, long length) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = ByteBuffer.allocate((int) Math.max(0, Math.min(length, channel.size() - offset)));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            return new ByteArrayInputStream(buffer.array(), 0, buffer.position());
+        }
+    }
+
+    @Override
+    public OptionalLong size(String key) throws IOException {
+        try {
+            return OptionalLong.of(Files.size(resolve(key)));
+        } catch (NoSuchFileException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    /* каталог плоский, и чтобы продолжить с afterKey, его всё равно приходится просматривать целиком */
+    @Override
+    public List<BlobEntry> list(String afterKey, int limit) throws IOException {
+        try (var files = Files.list(directory)) {
+            var keys = files.filter(Files::isRegularFile)
+                    .map(file -> file.getFileName().toString())
+                    .filter(key -> key.compareTo(afterKey) > 0)
+                    .sorted(Comparator.naturalOrder())
+                    .limit(limit)
+                    .toList();
+            var entries = new ArrayList<BlobEntry>(keys.size());
+            for (var key : keys) {
+                var file = directory.resolve(key);
+                try {
+                    entries.add(new BlobEntry(key, Files.size(file), Files.getLastModifiedTime(file).toInstant()));
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+            }
+            return entries;
+        }
+    }
+
+    /* строки, сохранённые до появления хранилищ, ссылаются на файл путём вместе с каталогом */
+    @Override
+    public List<String> referencePaths(String key) {
+        return List.of(key, directory.resolve(key).toString());
+    }
+
+    private Path resolve(String key) {
+        var path = Path.of(key);
+        var resolved = (path.startsWith(directory) ? path : directory.resolve(path)).normalize();
+        if (!resolved.startsWith(directory.normalize())) {
+            throw new IllegalArgumentException("Key is outside of the storage directory: " + key);
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,341 @@
+package ru.job4j.dreamjob.storage;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Объекты в S3-совместимом хранилище (AWS S3, MinIO, Ceph RGW) с адресацией endpoint/bucket/key.
+ * Запросы подписываются AWS Signature V4 без подписи тела (UNSIGNED-PAYLOAD), поэтому тело
+ * не нужно читать дважды. Объект больше partSize загружается multipart-частями по partSize байт,
+ * так что в памяти одновременно лежит не больше одной части.
+ */
+@ThreadSafe
+public class S3BlobStore implements BlobStore {
+
+    /* меньше S3 не принимает ни одну часть, кроме последней */
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final URI endpoint;
+
+    private final String region;
+
+    private final String bucket;
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    private final int partSize;
+
+    public S3BlobStore(URI endpoint, String region, String bucket, String accessKey, String secretKey, int partSize) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("Part size must be at least " + MIN_PART_SIZE + " bytes");
+        }
+        this.endpoint = endpoint;
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.partSize = partSize;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length) throws IOException {
+        if (length <= partSize) {
+            var body = HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> content), length);
+            expectSuccess(send("PUT", key, Map.of(), Map.of(), body, HttpResponse.BodyHandlers.ofString()), "PUT", key);
+            return;
+        }
+        var created = send("POST", key, Map.of("uploads", ""), Map.of(), HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.ofString());
+        expectSuccess(created, "CreateMultipartUpload", key);
+        var matcher = UPLOAD_ID.matcher(created.body());
+        if (!matcher.find()) {
+            throw new IOException("S3 CreateMultipartUpload returned no UploadId for " + key);
+        }
+        var uploadId = matcher.group(1);
+        try {
+            var etags = uploadParts(key, uploadId, content, length);
+            var completion = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < etags.size(); i++) {
+                completion.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(etags.get(i)).append("</ETag></Part>");
+            }
+            completion.append("</CompleteMultipartUpload>");
+            var completed = send("POST", key, Map.of("uploadId", uploadId), Map.of(),
+                    HttpRequest.BodyPublishers.ofString(completion.toString()), HttpResponse.BodyHandlers.ofString());
+            expectSuccess(completed, "CompleteMultipartUpload", key);
+        } catch (IOException | RuntimeException e) {
+            /* иначе загруженные части остаются в бакете и оплачиваются, пока их не удалит lifecycle-правило */
+            try {
+                send("DELETE", key, Map.of("uploadId", uploadId), Map.of(), HttpRequest.BodyPublishers.noBody(),
+                        HttpResponse.BodyHandlers.discarding());
+            } catch (IOException abortFailure) {
+                e.addSuppressed(abortFailure);
+            }
+            throw e;
+        }
+    }
+
+    private List<String> uploadParts(String key, String uploadId, InputStream content, long length) throws IOException {
+        var etags = new ArrayList<String>();
+        var part = new byte[partSize];
+        var remaining = length;
+        while (remaining > 0) {
+            var read = content.readNBytes(part, 0, (int) Math.min(partSize, remaining));
+            if (read == 0) {
+                throw new IOException("Stream ended " + remaining + " bytes before the declared length of " + key);
+            }
+            var query = Map.of("partNumber", String.valueOf(etags.size() + 1), "uploadId", uploadId);
+            var response = send("PUT", key, query, Map.of(), HttpRequest.BodyPublishers.ofByteArray(part, 0, read),
+                    HttpResponse.BodyHandlers.discarding());
+            expectSuccess(response, "UploadPart", key);
+            etags.add(response.headers().firstValue("ETag")
+                    .orElseThrow(() -> new IOException("S3 UploadPart returned no ETag for " + key)));
+            remaining -= read;
+        }
+        return etags;
+    }
+
+    @Override
+    public Optional<InputStream> get(String key) throws IOException {
+        return get(key, Map.of());
+    }
+
+    @Override
+    public Optional<InputStream> get(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return size(key).isPresent() ? Optional.of(InputStream.nullInputStream()) : Optional.empty();
+        }
+        return get(key, Map.of("Range", "bytes=" + offset + "-" + (offset + length - 1)));
+    }
+
+    private Optional<InputStream> get(String key, Map<String, String> headers) throws IOException {
+        var response = send("GET", key, Map.of(), headers, HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 404) {
+            response.body().close();
+            return Optional.empty();
+        }
+        /* диапазон за концом объекта */
+        if (response.statusCode() == 416) {
+            response.body().close();
+            return Optional.of(InputStream.nullInputStream());
+        }
+        if (response.statusCode() / 100 != 2) {
+            try (var body = response.body()) {
+                throw new IOException("S3 GET " + key + " failed with status " + response.statusCode()
+                        + ": " + new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return Optional.of(response.body());
+    }
+
+    @Override
+    public OptionalLong size(String key) throws IOException {
+        var response = send("HEAD", key, Map.of(), Map.of(), HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return OptionalLong.empty();
+        }
+        expectSuccess(response, "HEAD", key);
+        var length = response.headers().firstValueAsLong("Content-Length");
+        if (length.isEmpty()) {
+            throw new IOException("S3 HEAD returned no length for " + key);
+        }
+        return length;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        var response = send("DELETE", key, Map.of(), Map.of(), HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 404) {
+            expectSuccess(response, "DELETE", key);
+        }
+    }
+
+    /* ListObjectsV2: ключи уже отсортированы, start-after продолжает с нужного места */
+    @Override
+    public List<BlobEntry> list(String afterKey, int limit) throws IOException {
+        var query = new TreeMap<String, String>();
+        query.put("list-type", "2");
+        query.put("max-keys", String.valueOf(limit));
+        if (!afterKey.isEmpty()) {
+            query.put("start-after", afterKey);
+        }
+        var response = send("GET", "", query, Map.of(), HttpRequest.BodyPublishers.noBody(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 ListObjectsV2 failed with status " + response.statusCode());
+        }
+        try {
+            var factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            var contents = factory.newDocumentBuilder().parse(new ByteArrayInputStream(response.body()))
+                    .getElementsByTagName("Contents");
+            var entries = new ArrayList<BlobEntry>(contents.getLength());
+            for (int i = 0; i < contents.getLength(); i++) {
+                var element = (Element) contents.item(i);
+                entries.add(new BlobEntry(
+                        text(element, "Key"),
+                        Long.parseLong(text(element, "Size")),
+                        Instant.parse(text(element, "LastModified"))
+                ));
+            }
+            return entries;
+        } catch (ParserConfigurationException | SAXException | RuntimeException e) {
+            throw new IOException("Could not parse S3 ListObjectsV2 response", e);
+        }
+    }
+
+    private static String text(Element element, String tag) {
+        return element.getElementsByTagName(tag).item(0).getTextContent();
+    }
+
+    private <T> HttpResponse<T> send(String method, String key, Map<String, String> query, Map<String, String> headers,
+                                     HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler) throws IOException {
+        var path = endpoint.getRawPath().replaceAll("/$", "") + "/" + encode(bucket, false)
+                + (key.isEmpty() ? "" : "/" + encode(key, false));
+        var canonicalQuery = canonicalQuery(query);
+        var uri = URI.create(endpoint.getScheme() + "://" + endpoint.getRawAuthority() + path
+                + (canonicalQuery.isEmpty() ? "" : "?" + canonicalQuery));
+        var timestamp = ZonedDateTime.now(ZoneOffset.UTC).format(TIMESTAMP);
+        var signed = new TreeMap<String, String>();
+        signed.put("host", uri.getRawAuthority());
+        signed.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        signed.put("x-amz-date", timestamp);
+        headers.forEach((name, value) -> signed.put(name.toLowerCase(), value));
+        var request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMinutes(1))
+                .method(method, body)
+                .header("Authorization", authorization(method, path, canonicalQuery, signed, UNSIGNED_PAYLOAD, timestamp));
+        signed.forEach((name, value) -> {
+            if (!"host".equals(name)) {
+                request.header(name, value);
+            }
+        });
+        try {
+            return client.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling S3", e);
+        }
+    }
+
+    /* заголовок Authorization по AWS Signature V4; signedHeaders - имена в нижнем регистре, отсортированные */
+    String authorization(String method, String canonicalUri, String canonicalQuery, TreeMap<String, String> signedHeaders,
+                         String payloadHash, String timestamp) {
+        var canonicalHeaders = new StringBuilder();
+        signedHeaders.forEach((name, value) -> canonicalHeaders.append(name).append(':').append(value.strip()).append('\n'));
+        var headerNames = String.join(";", signedHeaders.keySet());
+        var canonicalRequest = method + "\n" + canonicalUri + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + headerNames + "\n" + payloadHash;
+        var date = timestamp.substring(0, 8);
+        var scope = date + "/" + region + "/s3/aws4_request";
+        var stringToSign = "AWS4-HMAC-SHA256\n" + timestamp + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+        var key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, "s3");
+        key = hmac(key, "aws4_request");
+        var signature = HexFormat.of().formatHex(hmac(key, stringToSign));
+        return "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + headerNames + ", Signature=" + signature;
+    }
+
+    private static String canonicalQuery(Map<String, String> query) {
+        var sorted = new TreeMap<String, String>();
+        query.forEach((name, value) -> sorted.put(encode(name, true), encode(value, true)));
+        var result = new StringBuilder();
+        sorted.forEach((name, value) -> {
+            if (result.length() > 0) {
+                result.append('&');
+            }
+            result.append(name).append('=').append(value);
+        });
+        return result.toString();
+    }
+
+    /* URI-кодирование в варианте SigV4: не кодируются только A-Z a-z 0-9 - _ . ~ и, в пути, слэш */
+    static String encode(String value, boolean encodeSlash) {
+        var result = new StringBuilder();
+        for (var b : value.getBytes(StandardCharsets.UTF_8)) {
+            var c = (char) (b & 0xFF);
+            if (c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9'
+                    || c == '-' || c == '_' || c == '.' || c == '~' || c == '/' && !encodeSlash) {
+                result.append(c);
+            } else {
+                result.append('%').append(HexFormat.of().withUpperCase().toHexDigits(b));
+            }
+        }
+        return result.toString();
+    }
+
+    private static void expectSuccess(HttpResponse<?> response, String operation, String key) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 " + operation + " " + key + " failed with status " + response.statusCode()
+                    + (response.body() instanceof String text ? ": " + text : ""));
+        }
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String value) {
+        try {
+            var mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.job4j.dreamjob.upload;
+
+import java.util.List;
+import java.util.Optional;
+
+/* форматы, которые можно загрузить как фото вакансии или кандидата; первое расширение - основное */
+public enum ImageType {
+
+    PNG("image/png", List.of("png")),
+    JPEG("image/jpeg", List.of("jpg", "jpeg")),
+    GIF("image/gif", List.of("gif")),
+    WEBP("image/webp", List.of("webp"));
+
+    /* сигнатуры всех форматов умещаются в первые 12 байт */
+    public static final int SIGNATURE_LENGTH = 12;
+
+    private final String contentType;
+
+    private final List<String> extensions;
+
+    ImageType(String contentType, List<String> extensions) {
+        this.contentType = contentType;
+        this.extensions = extensions;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public List<String> getExtensions() {
+        return extensions;
+    }
+
+    /* формат по первым SIGNATURE_LENGTH байтам файла */
+    public static Optional<ImageType> of(byte[] signature) {
+        if (startsWith(signature, 0, 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n')) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(signature, 0, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(signature, 0, 'G', 'I', 'F', '8', '7', 'a') || startsWith(signature, 0, 'G', 'I', 'F', '8', '9', 'a')) {
+            return Optional.of(GIF);
+        }
+        if (startsWith(signature, 0, 'R', 'I', 'F', 'F') && startsWith(signature, 8, 'W', 'E', 'B', 'P')) {
+            return Optional.of(WEBP);
+        }
+        return Optional.empty();
+    }
+
+    /* Content-Type для файлов, загруженных до проверки формата */
+    public static String contentTypeOf(byte[] signature) {
+        return of(signature).map(ImageType::getContentType).orElse("application/octet-stream");
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int... expected) {
+        if (bytes.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((bytes[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
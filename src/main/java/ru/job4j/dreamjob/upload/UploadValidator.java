@@ -0,0 +1,236 @@
+package ru.job4j.dreamjob.upload;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import ru.job4j.dreamjob.dto.FileDto;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Проверяет загружаемый файл до того, как он целиком окажется в памяти и в хранилище.
+ * Размер берётся из заголовков multipart, формат - по сигнатуре в первых байтах, а ширина и высота -
+ * из заголовка изображения: для JPEG сегменты до SOF пропускаются без чтения в память,
+ * но не дальше MAX_HEADER_LENGTH байт. Имя файла очищается от пути, управляющих символов
+ * и символов, недопустимых в именах файлов, а расширение приводится к найденному формату.
+ * Пустой файл пропускается как есть: при изменении вакансии или кандидата он означает, что фото не меняется.
+ * В FileDto передаётся сам MultipartFile: содержимое читается потоком уже при записи в хранилище.
+ */
+@Component
+public class UploadValidator {
+
+    /* перед размерами в JPEG могут стоять EXIF с миниатюрой и ICC-профиль */
+    private static final int MAX_HEADER_LENGTH = 256 * 1024;
+
+    private static final int MAX_NAME_LENGTH = 100;
+
+    private static final Pattern UNSAFE_CHARACTERS = Pattern.compile("[\\p{Cntrl}\\p{Cf}<>:\"/\\\\|?*]");
+
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final Map<ImageType, Long> maxSizes = new EnumMap<>(ImageType.class);
+
+    private final long largestMaxSize;
+
+    private final int maxWidth;
+
+    private final int maxHeight;
+
+    public UploadValidator(@Value("${upload.png.max-size}") DataSize pngMaxSize,
+                           @Value("${upload.jpeg.max-size}") DataSize jpegMaxSize,
+                           @Value("${upload.gif.max-size}") DataSize gifMaxSize,
+                           @Value("${upload.webp.max-size}") DataSize webpMaxSize,
+                           @Value("${upload.image.max-width}") int maxWidth,
+                           @Value("${upload.image.max-height}") int maxHeight) {
+        maxSizes.put(ImageType.PNG, pngMaxSize.toBytes());
+        maxSizes.put(ImageType.JPEG, jpegMaxSize.toBytes());
+        maxSizes.put(ImageType.GIF, gifMaxSize.toBytes());
+        maxSizes.put(ImageType.WEBP, webpMaxSize.toBytes());
+        this.largestMaxSize = Collections.max(maxSizes.values());
+        this.maxWidth = maxWidth;
+        this.maxHeight = maxHeight;
+    }
+
+    /* IllegalArgumentException с сообщением для пользователя, если файл нельзя принять */
+    public FileDto read(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            return new FileDto(file.getOriginalFilename(), file, 0);
+        }
+        if (file.getSize() > largestMaxSize) {
+            throw tooLarge(largestMaxSize);
+        }
+        var type = check(file);
+        var image = new FileDto(sanitizeName(file.getOriginalFilename(), type), file, file.getSize());
+        image.setContentType(type.getContentType());
+        return image;
+    }
+
+    private ImageType check(MultipartFile file) throws IOException {
+        try (var input = new DataInputStream(new BufferedInputStream(file.getInputStream()))) {
+            input.mark(ImageType.SIGNATURE_LENGTH);
+            var signature = input.readNBytes(ImageType.SIGNATURE_LENGTH);
+            input.reset();
+            var type = ImageType.of(signature).orElseThrow(
+                    () -> new IllegalArgumentException("Можно загрузить только изображение PNG, JPEG, GIF или WebP"));
+            if (file.getSize() > maxSizes.get(type)) {
+                throw tooLarge(maxSizes.get(type));
+            }
+            switch (type) {
+                case PNG -> checkPng(input);
+                case JPEG -> checkJpeg(input);
+                case GIF -> checkGif(input);
+                default -> checkWebp(input);
+            }
+            return type;
+        } catch (EOFException e) {
+            throw corrupted();
+        }
+    }
+
+    /* первый чанк PNG - всегда IHDR: ширина и высота по 4 байта big-endian */
+    private void checkPng(DataInputStream input) throws IOException {
+        input.skipNBytes(8 + 4);
+        if (input.readInt() != fourCc("IHDR")) {
+            throw corrupted();
+        }
+        checkDimensions(input.readInt(), input.readInt());
+    }
+
+    /* размеры логического экрана сразу после сигнатуры, little-endian */
+    private void checkGif(DataInputStream input) throws IOException {
+        input.skipNBytes(6);
+        var header = input.readNBytes(4);
+        if (header.length < 4) {
+            throw corrupted();
+        }
+        checkDimensions(littleEndian(header, 0, 2), littleEndian(header, 2, 2));
+    }
+
+    private void checkJpeg(DataInputStream input) throws IOException {
+        input.skipNBytes(2);
+        var position = 2;
+        while (position < MAX_HEADER_LENGTH) {
+            if (input.readUnsignedByte() != 0xFF) {
+                throw corrupted();
+            }
+            var marker = input.readUnsignedByte();
+            position += 2;
+            while (marker == 0xFF) {
+                marker = input.readUnsignedByte();
+                position++;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                continue;
+            }
+            /* начало данных или конец файла раньше кадра: размеров в файле нет */
+            if (marker == 0xD9 || marker == 0xDA) {
+                throw corrupted();
+            }
+            var length = input.readUnsignedShort();
+            if (isStartOfFrame(marker)) {
+                input.skipNBytes(1);
+                var height = input.readUnsignedShort();
+                var width = input.readUnsignedShort();
+                checkDimensions(width, height);
+                return;
+            }
+            if (length < 2) {
+                throw corrupted();
+            }
+            input.skipNBytes(length - 2);
+            position += length;
+        }
+        throw corrupted();
+    }
+
+    /* SOF0-SOF15, кроме DHT, JPG и DAC с теми же кодами */
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private void checkWebp(DataInputStream input) throws IOException {
+        input.skipNBytes(ImageType.SIGNATURE_LENGTH);
+        var chunk = input.readInt();
+        input.skipNBytes(4);
+        var header = input.readNBytes(10);
+        if (header.length < 10) {
+            throw corrupted();
+        }
+        if (chunk == fourCc("VP8 ")) {
+            checkDimensions(littleEndian(header, 6, 2) & 0x3FFF, littleEndian(header, 8, 2) & 0x3FFF);
+        } else if (chunk == fourCc("VP8L")) {
+            var bits = littleEndian(header, 1, 4);
+            checkDimensions((bits & 0x3FFF) + 1, (bits >>> 14 & 0x3FFF) + 1);
+        } else if (chunk == fourCc("VP8X")) {
+            checkDimensions(littleEndian(header, 4, 3) + 1, littleEndian(header, 7, 3) + 1);
+        } else {
+            throw corrupted();
+        }
+    }
+
+    private void checkDimensions(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw corrupted();
+        }
+        if (width > maxWidth || height > maxHeight) {
+            throw new IllegalArgumentException("Изображение %dx%d больше допустимых %dx%d точек"
+                    .formatted(width, height, maxWidth, maxHeight));
+        }
+    }
+
+    private static int fourCc(String code) {
+        var bytes = code.getBytes(StandardCharsets.US_ASCII);
+        return (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | bytes[3] & 0xFF;
+    }
+
+    private static int littleEndian(byte[] bytes, int offset, int length) {
+        var value = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            value = value << 8 | bytes[offset + i] & 0xFF;
+        }
+        return value;
+    }
+
+    /* имя без пути и опасных символов, с расширением найденного формата */
+    static String sanitizeName(String originalName, ImageType type) {
+        var name = originalName == null ? "" : originalName;
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        name = Normalizer.normalize(name, Normalizer.Form.NFC);
+        name = UNSAFE_CHARACTERS.matcher(name).replaceAll("_");
+        name = SPACES.matcher(name).replaceAll(" ").strip();
+        var dot = name.lastIndexOf('.');
+        var base = dot < 0 ? name : name.substring(0, dot);
+        var extension = dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+        base = base.replaceFirst("^[.\\s]+", "").strip();
+        if (base.isEmpty()) {
+            base = "file";
+        }
+        if (base.length() > MAX_NAME_LENGTH) {
+            var end = Character.isHighSurrogate(base.charAt(MAX_NAME_LENGTH - 1)) ? MAX_NAME_LENGTH - 1 : MAX_NAME_LENGTH;
+            base = base.substring(0, end);
+        }
+        if (!type.getExtensions().contains(extension)) {
+            extension = type.getExtensions().get(0);
+        }
+        return base + "." + extension;
+    }
+
+    private static IllegalArgumentException tooLarge(long maxSize) {
+        return new IllegalArgumentException("Файл больше допустимых " + DataSize.ofBytes(maxSize).toKilobytes() + " КБ");
+    }
+
+    private static IllegalArgumentException corrupted() {
+        return new IllegalArgumentException("Файл изображения повреждён или не поддерживается");
+    }
+}
@@ -0,0 +1,64 @@
+package ru.job4j.dreamjob.benchmark;
+
+import ru.job4j.dreamjob.configuration.TestDatasources;
+import ru.job4j.dreamjob.configuration.VirtualThreadConfiguration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Сравнивает пропускную способность пула платформенных потоков (как у Tomcat по умолчанию)
+ * и виртуальных потоков на запросах, которые блокируются на JDBC и на медленном вводе-выводе.
+ * Запуск: java -cp ... ru.job4j.dreamjob.benchmark.RequestExecutionBenchmark [requests] [platformThreads] [poolSize]
+ * По умолчанию размер пула - datasource.pool.max-total из application.properties.
+ */
+public class RequestExecutionBenchmark {
+
+    private static final Duration IO_LATENCY = Duration.ofMillis(20);
+
+    public static void main(String[] args) throws Exception {
+        var requests = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        var platformThreads = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        var poolSize = args.length > 2 ? Integer.parseInt(args[2]) : TestDatasources.defaultMaxTotal();
+        var dataSource = TestDatasources.connectionPool(
+                "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", "", "", poolSize, Duration.ofSeconds(30));
+
+        run("platform threads (" + platformThreads + ")",
+                Executors.newFixedThreadPool(platformThreads), dataSource, requests);
+        if (VirtualThreadConfiguration.isSupported()) {
+            run("virtual threads", VirtualThreadConfiguration.newVirtualThreadPerTaskExecutor(), dataSource, requests);
+        } else {
+            System.out.println("virtual threads: skipped, JDK " + Runtime.version() + " has no virtual threads");
+        }
+    }
+
+    private static void run(String mode, ExecutorService executor, DataSource dataSource, int requests) throws Exception {
+        var start = System.nanoTime();
+        var results = new ArrayList<Future<?>>(requests);
+        for (int i = 0; i < requests; i++) {
+            results.add(executor.submit(() -> handle(dataSource)));
+        }
+        for (var result : results) {
+            result.get();
+        }
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+        executor.shutdown();
+        System.out.printf("%-28s %6d requests in %6d ms, %8.1f req/s%n",
+                mode, requests, elapsed.toMillis(), requests * 1000.0 / Math.max(1, elapsed.toMillis()));
+    }
+
+    /* имитация запроса: короткий запрос к БД и чтение файла с диска */
+    private static Void handle(DataSource dataSource) throws Exception {
+        try (var connection = dataSource.getConnection();
+             var statement = connection.createStatement();
+             var resultSet = statement.executeQuery("SELECT 1")) {
+            resultSet.next();
+        }
+        Thread.sleep(IO_LATENCY.toMillis());
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.job4j.dreamjob.benchmark;
+
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.TestDatasources;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.Sql2oVacancyRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Сравнивает чтение вакансий рефлексивным отображением Sql2o (Vacancy.COLUMN_MAPPING)
+ * и ручным маппером по индексам колонок, который использует Sql2oVacancyRepository.
+ * Запуск: java -cp ... ru.job4j.dreamjob.benchmark.RowMapperBenchmark [rows] [iterations]
+ */
+public class RowMapperBenchmark {
+
+    public static void main(String[] args) {
+        var rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        var iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        var sql2o = TestDatasources.databaseClient(
+                TestDatasources.connectionPool("jdbc:h2:mem:mappers;DB_CLOSE_DELAY=-1", "", ""));
+        fill(sql2o, rows);
+        var repository = new Sql2oVacancyRepository(sql2o, sql2o, Duration.ZERO);
+        Supplier<Collection<Vacancy>> reflective = () -> {
+            try (var connection = sql2o.open()) {
+                /* те же колонки и условие, что у репозитория: сравнивается только отображение строк */
+                return connection.createQuery("SELECT id, title, description, creation_date, visible, city_id, file_id, version"
+                                + " FROM vacancies WHERE deleted_at IS NULL")
+                        .setColumnMappings(Vacancy.COLUMN_MAPPING)
+                        .executeAndFetch(Vacancy.class);
+            }
+        };
+
+        /* первый проход - прогрев JIT, в зачёт идёт второй */
+        for (int pass = 0; pass < 2; pass++) {
+            run("reflective COLUMN_MAPPING", reflective, rows, iterations);
+            run("index row mapper", repository::findAll, rows, iterations);
+        }
+    }
+
+    private static void fill(Sql2o sql2o, int rows) {
+        try (var connection = sql2o.beginTransaction()) {
+            connection.createQuery("""
+                    CREATE TABLE vacancies (
+                        id SERIAL PRIMARY KEY, title VARCHAR, description VARCHAR, creation_date TIMESTAMP,
+                        visible BOOLEAN, city_id INT, file_id INT, version INT NOT NULL DEFAULT 0,
+                        deleted_at TIMESTAMP)
+                    """).executeUpdate();
+            var query = connection.createQuery("""
+                    INSERT INTO vacancies(title, description, creation_date, visible, city_id, file_id)
+                    VALUES (:title, :description, :creationDate, true, 1, 1)
+                    """);
+            for (int i = 0; i < rows; i++) {
+                query.addParameter("title", "Java developer " + i)
+                        .addParameter("description", "Описание вакансии " + i)
+                        .addParameter("creationDate", LocalDateTime.now())
+                        .addToBatch();
+            }
+            query.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private static void run(String mode, Supplier<Collection<Vacancy>> findAll, int rows, int iterations) {
+        var start = System.nanoTime();
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            total += findAll.get().size();
+        }
+        var elapsed = Duration.ofNanos(System.nanoTime() - start);
+        System.out.printf("%-28s %6d rows x %4d in %6d ms, %8.1f ns/row%n",
+                mode, rows, iterations, elapsed.toMillis(), (double) elapsed.toNanos() / Math.max(1, total));
+    }
+}
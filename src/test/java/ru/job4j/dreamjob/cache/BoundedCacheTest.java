@@ -0,0 +1,115 @@
+package ru.job4j.dreamjob.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void whenGetTwiceThenLoadOnceAndCountHit() {
+        var loads = new AtomicInteger();
+        var cache = new BoundedCache<Integer, String>(10, Duration.ofMinutes(1));
+
+        var first = cache.get(1, key -> "value" + loads.incrementAndGet());
+        var second = cache.get(1, key -> "value" + loads.incrementAndGet());
+
+        assertThat(first).isEqualTo("value1");
+        assertThat(second).isEqualTo("value1");
+        assertThat(cache.getStatistics().getHits()).isEqualTo(1);
+        assertThat(cache.getStatistics().getMisses()).isEqualTo(1);
+        assertThat(cache.getStatistics().getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void whenTtlExpiredThenLoadAgain() {
+        var now = new AtomicLong();
+        var loads = new AtomicInteger();
+        var cache = new BoundedCache<Integer, Integer>(10, Duration.ofSeconds(1), now::get);
+
+        cache.get(1, key -> loads.incrementAndGet());
+        now.addAndGet(Duration.ofSeconds(2).toNanos());
+        var reloaded = cache.get(1, key -> loads.incrementAndGet());
+
+        assertThat(reloaded).isEqualTo(2);
+    }
+
+    @Test
+    public void whenInvalidateThenLoadAgain() {
+        var loads = new AtomicInteger();
+        var cache = new BoundedCache<Integer, Integer>(10, Duration.ofMinutes(1));
+
+        cache.get(1, key -> loads.incrementAndGet());
+        cache.invalidate(1);
+        var reloaded = cache.get(1, key -> loads.incrementAndGet());
+
+        assertThat(reloaded).isEqualTo(2);
+    }
+
+    @Test
+    public void whenSizeExceededThenOldestEvicted() {
+        var cache = new BoundedCache<Integer, Integer>(2, Duration.ofMinutes(1));
+
+        cache.get(1, key -> key);
+        cache.get(2, key -> key);
+        cache.get(3, key -> key);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getIfPresent(1)).isNull();
+        assertThat(cache.getIfPresent(3)).isEqualTo(3);
+        assertThat(cache.getStatistics().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenLoaderFailsThenExceptionPropagatedAndNothingCached() {
+        var cache = new BoundedCache<Integer, Integer>(10, Duration.ofMinutes(1));
+
+        assertThatThrownBy(() -> cache.get(1, key -> {
+            throw new IllegalStateException("db is down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get(1, key -> 42)).isEqualTo(42);
+    }
+
+    @Test
+    public void whenConcurrentMissesThenSingleLoad() throws Exception {
+        var threads = 8;
+        var loads = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var cache = new BoundedCache<Integer, Integer>(10, Duration.ofMinutes(1));
+        var pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                pool.submit(() -> {
+                    start.await();
+                    return cache.get(1, key -> {
+                        loads.incrementAndGet();
+                        sleep();
+                        return key;
+                    });
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
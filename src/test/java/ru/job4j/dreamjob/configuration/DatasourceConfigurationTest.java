@@ -0,0 +1,63 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.jdbc.QueryStatisticsCollector;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class DatasourceConfigurationTest {
+
+    /* конвертеры Spring Boot нужны, чтобы @Value разобрал Duration, как в приложении */
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(DatasourceConfiguration.class, QueryStatisticsCollector.class)
+            .withPropertyValues(
+                    "datasource.url=jdbc:h2:mem:context-primary;DB_CLOSE_DELAY=-1",
+                    "datasource.username=",
+                    "datasource.password=",
+                    "datasource.pool.max-total=2",
+                    "datasource.pool.max-wait=1s",
+                    "datasource.pool.initial-size=0",
+                    "query.slow-threshold=1s",
+                    "query.statistics.max-shapes=10");
+
+    /* две базы H2 с разным содержимым: по ответу видно, в какую из них ушёл запрос */
+    @Test
+    public void whenReplicaUrlSetThenReplicaClientReadsReplicaDatabase() {
+        contextRunner.withPropertyValues("datasource.replica.url=jdbc:h2:mem:context-replica;DB_CLOSE_DELAY=-1")
+                .run(context -> {
+                    var primary = context.getBean("databaseClient", Sql2o.class);
+                    var replica = context.getBean("replicaDatabaseClient", Sql2o.class);
+                    mark(primary, "primary");
+                    mark(replica, "replica");
+
+                    assertThat(replica).isNotSameAs(primary);
+                    assertThat(marker(primary)).isEqualTo("primary");
+                    assertThat(marker(replica)).isEqualTo("replica");
+                });
+    }
+
+    @Test
+    public void whenReplicaUrlNotSetThenReplicaClientIsPrimary() {
+        contextRunner.run(context -> {
+            assertThat(context.containsBean("replicaConnectionPool")).isFalse();
+            assertThat(context.getBean("replicaDatabaseClient")).isSameAs(context.getBean("databaseClient"));
+        });
+    }
+
+    private static void mark(Sql2o sql2o, String name) {
+        try (var connection = sql2o.open()) {
+            connection.createQuery("CREATE TABLE marker (name VARCHAR)").executeUpdate();
+            connection.createQuery("INSERT INTO marker (name) VALUES (:name)").addParameter("name", name).executeUpdate();
+        }
+    }
+
+    private static String marker(Sql2o sql2o) {
+        try (var connection = sql2o.open()) {
+            return connection.createQuery("SELECT name FROM marker").executeScalar(String.class);
+        }
+    }
+}
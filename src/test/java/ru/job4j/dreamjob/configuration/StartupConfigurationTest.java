@@ -0,0 +1,25 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import ru.job4j.dreamjob.service.DeletedRecordsPurgeService;
+import ru.job4j.dreamjob.service.FileMetadataBackfillService;
+import ru.job4j.dreamjob.service.SimpleCityService;
+import ru.job4j.dreamjob.service.StorageQuotaService;
+import ru.job4j.dreamjob.service.StorageScrubberService;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class StartupConfigurationTest {
+
+    @Test
+    public void whenBeanHasScheduledMethodsThenExcludedFromLazyInitialization() {
+        var filter = StartupConfiguration.eagerBeans();
+
+        assertThat(filter.isExcluded("purge", new RootBeanDefinition(), DeletedRecordsPurgeService.class)).isTrue();
+        assertThat(filter.isExcluded("scrubber", new RootBeanDefinition(), StorageScrubberService.class)).isTrue();
+        assertThat(filter.isExcluded("backfill", new RootBeanDefinition(), FileMetadataBackfillService.class)).isTrue();
+        assertThat(filter.isExcluded("quota", new RootBeanDefinition(), StorageQuotaService.class)).isTrue();
+        assertThat(filter.isExcluded("cities", new RootBeanDefinition(), SimpleCityService.class)).isFalse();
+    }
+}
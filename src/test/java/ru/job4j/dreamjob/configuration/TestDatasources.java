@@ -0,0 +1,56 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.sql2o.Sql2o;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+/*
+ * Пул и Sql2o для тестов и бенчмарков - такие же, как собирает DatasourceConfiguration.
+ * Настройки пула по умолчанию берутся из application.properties, чтобы тесты работали с тем же пулом, что и приложение
+ */
+public final class TestDatasources {
+
+    private static final String DEFAULTS = "application.properties";
+
+    private TestDatasources() {
+    }
+
+    public static DataSource connectionPool(String url, String username, String password) {
+        return connectionPool(url, username, password, defaultMaxTotal(), defaultMaxWait());
+    }
+
+    public static DataSource connectionPool(String url, String username, String password, int maxTotal, Duration maxWait) {
+        return DatasourceConfiguration.createPool(url, username, password, maxTotal, maxWait, 0);
+    }
+
+    /* без ProfilingDataSource: тестам статистика запросов не нужна */
+    public static Sql2o databaseClient(DataSource dataSource) {
+        return DatasourceConfiguration.createDatabaseClient(dataSource);
+    }
+
+    public static int defaultMaxTotal() {
+        return Integer.parseInt(defaultProperty("datasource.pool.max-total"));
+    }
+
+    public static Duration defaultMaxWait() {
+        return DurationStyle.detectAndParse(defaultProperty("datasource.pool.max-wait"));
+    }
+
+    private static String defaultProperty(String name) {
+        try {
+            var value = PropertiesLoaderUtils.loadProperties(new ClassPathResource(DEFAULTS)).getProperty(name);
+            if (value == null) {
+                throw new IllegalStateException(name + " is missing in " + DEFAULTS);
+            }
+            return value.trim();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.job4j.dreamjob.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class WebConfigurationTest {
+
+    @Test
+    public void whenVersionedPathThenImmutableOtherwisePlainResource(@TempDir Path directory) throws Exception {
+        var content = "body {}".getBytes(StandardCharsets.UTF_8);
+        Files.write(directory.resolve("app.css"), content);
+        var resolver = WebConfiguration.versionResourceResolver();
+        var locations = List.of(new FileSystemResource(directory.toString() + "/"));
+        var request = new MockHttpServletRequest();
+
+        var versioned = resolver.resolveResource(request, "app-" + DigestUtils.md5DigestAsHex(content) + ".css", locations, new PathChain());
+        var plain = resolver.resolveResource(request, "app.css", locations, new PathChain());
+
+        assertThat(versioned).isInstanceOf(HttpResource.class);
+        assertThat(((HttpResource) versioned).getResponseHeaders().getCacheControl()).contains("immutable");
+        assertThat(plain).isNotInstanceOf(HttpResource.class);
+        assertThat(plain.exists()).isTrue();
+    }
+
+    /* конец цепочки: ищет файл по пути как есть */
+    private static final class PathChain implements ResourceResolverChain {
+
+        private final PathResourceResolver resolver = new PathResourceResolver();
+
+        @Override
+        public Resource resolveResource(HttpServletRequest request, String requestPath, List<? extends Resource> locations) {
+            return resolver.resolveResource(request, requestPath, locations, this);
+        }
+
+        @Override
+        public String resolveUrlPath(String resourcePath, List<? extends Resource> locations) {
+            return resolver.resolveUrlPath(resourcePath, locations, this);
+        }
+    }
+}
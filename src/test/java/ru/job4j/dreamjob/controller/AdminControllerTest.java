@@ -0,0 +1,31 @@
+package ru.job4j.dreamjob.controller;
+
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.cache.CacheStatistics;
+import ru.job4j.dreamjob.cache.CacheStatisticsProvider;
+import ru.job4j.dreamjob.jdbc.QueryStatisticsCollector;
+import ru.job4j.dreamjob.service.StorageScrubberService;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AdminControllerTest {
+
+    @Test
+    public void whenRequestCacheStatisticsThenGetStatisticsByCacheName() {
+        var cache = mock(CacheStatisticsProvider.class);
+        var statistics = new CacheStatistics(3, 1, 0, 2);
+        when(cache.getCacheName()).thenReturn("vacancies");
+        when(cache.getStatistics()).thenReturn(statistics);
+        var adminController = new AdminController(List.of(cache), mock(QueryStatisticsCollector.class),
+                mock(StorageScrubberService.class));
+
+        var actual = adminController.getCacheStatistics();
+
+        assertThat(actual).containsEntry("vacancies", statistics);
+        assertThat(actual.get("vacancies").getHitRatio()).isEqualTo(0.75);
+    }
+}
@@ -0,0 +1,70 @@
+package ru.job4j.dreamjob.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.service.CandidateService;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CandidateApiControllerTest {
+
+    private CandidateService candidateService;
+
+    private CandidateApiController candidateApiController;
+
+    private final LocalDateTime creationDate = LocalDateTime.of(2023, 1, 2, 3, 4);
+
+    @BeforeEach
+    public void initServices() {
+        candidateService = mock(CandidateService.class);
+        candidateApiController = new CandidateApiController(candidateService, new ObjectMapper());
+    }
+
+    @Test
+    public void whenRequestCandidatesAfterIdThenGetNextPage() throws Exception {
+        var candidate = new Candidate(3, "name3", "desc3", creationDate, 1, 2);
+        when(candidateService.findPage(2, 1)).thenReturn(List.of(candidate));
+
+        var response = candidateApiController.getAll(2, 1, "id,name,cityId");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(write(response.getBody())).isEqualTo("{\"id\":3,\"name\":\"name3\",\"cityId\":1}\n");
+    }
+
+    @Test
+    public void whenRequestNegativeLimitThenBadRequest() {
+        assertThatThrownBy(() -> candidateApiController.getAll(0, -1, null))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Limit must not be negative");
+    }
+
+    @Test
+    public void whenRequestCandidateByIdThenGetSelectedFields() throws Exception {
+        var candidate = new Candidate(1, "name1", "desc1", creationDate, 1, 2);
+        when(candidateService.findById(1)).thenReturn(Optional.of(candidate));
+
+        var response = candidateApiController.getById(1, "name,creationDate");
+
+        assertThat(response.getBody()).isEqualTo("{\"name\":\"name1\",\"creationDate\":\"2023-01-02T03:04\"}");
+    }
+
+    private String write(StreamingResponseBody body) throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
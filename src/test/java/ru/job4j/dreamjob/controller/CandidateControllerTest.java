@@ -5,19 +5,27 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.ui.ConcurrentModel;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.Candidate;
 import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.service.CandidateService;
 import ru.job4j.dreamjob.service.CityService;
+import ru.job4j.dreamjob.upload.UploadValidator;
 
 import javax.servlet.http.HttpSession;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static java.time.LocalDateTime.now;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 public class CandidateControllerTest {
@@ -33,8 +41,35 @@ public class CandidateControllerTest {
     public void initServices() {
         candidateService = mock(CandidateService.class);
         cityService = mock(CityService.class);
-        candidateController = new CandidateController(candidateService, cityService);
-        testFile = new MockMultipartFile("testFile.img", new byte[] {1, 2, 3});
+        var uploadValidator = new UploadValidator(DataSize.ofMegabytes(5), DataSize.ofMegabytes(5),
+                DataSize.ofMegabytes(2), DataSize.ofMegabytes(5), 4096, 4096);
+        candidateController = new CandidateController(candidateService, cityService, uploadValidator);
+        /* заголовок GIF 1x1: проверка загрузки читает только его */
+        testFile = new MockMultipartFile("file", "testFile.gif", "image/gif",
+                new byte[] {'G', 'I', 'F', '8', '9', 'a', 1, 0, 1, 0, 0, 0, 0, ';'});
+    }
+
+    @Test
+    public void whenExportThenGetCsvWithFormulasEscapedAndFilterPassedToService() throws Exception {
+        var creationDate = LocalDateTime.of(2024, 3, 1, 10, 30);
+        when(cityService.findAll()).thenReturn(List.of(new City(1, "Москва")));
+        doAnswer(invocation -> {
+            Consumer<Candidate> action = invocation.getArgument(3);
+            action.accept(new Candidate(1, "=HYPERLINK(\"x\")", "\t=1+1", creationDate, 1, 0));
+            action.accept(new Candidate(2, "\r@SUM(A1)", "-5", null, 1, 0));
+            return null;
+        }).when(candidateService).streamAll(anyInt(), any(), any(), any());
+
+        var response = candidateController.export(1, null, LocalDate.of(2024, 3, 31));
+        var outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+
+        verify(candidateService).streamAll(eq(1), isNull(), eq(LocalDate.of(2024, 4, 1).atStartOfDay()), any());
+        assertThat(response.getHeaders().getContentType()).isEqualTo(CsvWriter.TEXT_CSV);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "\uFEFFid,name,description,creation_date,city\r\n"
+                + "1,\"'=HYPERLINK(\"\"x\"\")\",\"'\t=1+1\",2024-03-01 10:30:00,Москва\r\n"
+                + "2,\"'\r@SUM(A1)\",\"'-5\",,Москва\r\n");
     }
 
     @Test
@@ -72,13 +107,14 @@ public class CandidateControllerTest {
     @Test
     public void whenPostCandidateWithFileThenSameDataAndRedirectToCandidatesPage() throws Exception {
         var candidate = new Candidate(1, "test1", "desc1", now(), 1, 5);
-        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile.getBytes());
+        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile, testFile.getSize());
+        fileDto.setContentType("image/gif");
         var candidateArgumentCaptor = ArgumentCaptor.forClass(Candidate.class);
         var fileDtoArgumentCaptor = ArgumentCaptor.forClass(FileDto.class);
         when(candidateService.save(candidateArgumentCaptor.capture(), fileDtoArgumentCaptor.capture())).thenReturn(candidate);
 
         var model = new ConcurrentModel();
-        var view = candidateController.create(candidate, testFile, model);
+        var view = candidateController.create(candidate, testFile, model, mock(HttpSession.class));
         var actualCandidate = candidateArgumentCaptor.getValue();
         var actualFileDto = fileDtoArgumentCaptor.getValue();
 
@@ -94,7 +130,7 @@ public class CandidateControllerTest {
         when(candidateService.save(any(), any())).thenThrow(expectedException);
 
         var model = new ConcurrentModel();
-        var view = candidateController.create(new Candidate(), testFile, model);
+        var view = candidateController.create(new Candidate(), testFile, model, mock(HttpSession.class));
         var actualExceptionMessage = model.getAttribute("message");
 
         assertThat(view).isEqualTo("errors/404");
@@ -141,13 +177,14 @@ public class CandidateControllerTest {
     @Test
     public void whenUpdateCandidateThenUpdatedDataAndRedirectToCandidatesPage() throws Exception {
         var candidate = new Candidate(1, "test1", "desc1", now(), 1, 5);
-        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile.getBytes());
+        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile, testFile.getSize());
+        fileDto.setContentType("image/gif");
         var candidateArgumentCaptor = ArgumentCaptor.forClass(Candidate.class);
         var fileDtoArgumentCaptor = ArgumentCaptor.forClass(FileDto.class);
         when(candidateService.update(candidateArgumentCaptor.capture(), fileDtoArgumentCaptor.capture())).thenReturn(true);
 
         var model = new ConcurrentModel();
-        var view = candidateController.update(candidate, testFile, model);
+        var view = candidateController.update(candidate, testFile, model, mock(HttpSession.class));
         var actualCandidate = candidateArgumentCaptor.getValue();
         var actualFileDto = fileDtoArgumentCaptor.getValue();
 
@@ -163,7 +200,7 @@ public class CandidateControllerTest {
         when(candidateService.update(any(Candidate.class), any(FileDto.class))).thenReturn(false);
 
         var model = new ConcurrentModel();
-        var view = candidateController.update(candidate, testFile, model);
+        var view = candidateController.update(candidate, testFile, model, mock(HttpSession.class));
         var actualCandidateMessage = model.getAttribute("message");
 
         assertThat(view).isEqualTo("errors/404");
@@ -176,7 +213,7 @@ public class CandidateControllerTest {
         when(candidateService.update(any(), any())).thenThrow(expectedException);
 
         var model = new ConcurrentModel();
-        var view = candidateController.update(new Candidate(), testFile, model);
+        var view = candidateController.update(new Candidate(), testFile, model, mock(HttpSession.class));
         var actualExceptionMessage = model.getAttribute("message");
 
         assertThat(view).isEqualTo("errors/404");
@@ -2,48 +2,149 @@ package ru.job4j.dreamjob.controller;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 import ru.job4j.dreamjob.dto.FileDto;
+import ru.job4j.dreamjob.dto.FileMetadataDto;
 import ru.job4j.dreamjob.service.FileService;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class FileControllerTest {
+    private static final String SHA256 = "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81";
+
     private FileService fileService;
 
     private FileController fileController;
 
     private FileDto testFile;
 
+    private FileMetadataDto testMetadata;
+
     @BeforeEach
     public void initServices() {
         fileService = mock(FileService.class);
         fileController = new FileController(fileService);
-        testFile = new FileDto("testFile.img", new byte[] {1, 2, 3});
+        testFile = new FileDto("testFile.img", new ByteArrayResource(new byte[] {1, 2, 3}), 3);
+        testMetadata = new FileMetadataDto("testFile.img", 3, "image/gif", SHA256, LocalDateTime.of(2024, 1, 1, 12, 0));
     }
 
     @Test
-    public void whenRequestFileContentPageThenGetByteArrayPage() {
-        var expectedResponseEntity = ResponseEntity.ok().body(testFile.getContent());
+    public void whenRequestFileContentPageThenGetStreamedContent() throws Exception {
+        when(fileService.getMetadataById(anyInt())).thenReturn(Optional.of(testMetadata));
         when(fileService.getFileById(anyInt())).thenReturn(Optional.of(testFile));
 
-        var view = fileController.getById(anyInt());
+        var view = fileController.getById(1, request(new MockHttpServletRequest("GET", "/files/1")));
 
-        assertThat(view).isEqualTo(expectedResponseEntity);
+        assertThat(view.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(content(view)).isEqualTo(new byte[] {1, 2, 3});
+        assertThat(view.getHeaders().getETag()).isEqualTo("\"" + SHA256 + "\"");
+        assertThat(view.getHeaders().getContentLength()).isEqualTo(3L);
     }
 
     @Test
-    public void whenRequestFileContentPageThenFileNotFound() {
+    public void whenRequestFileContentPageThenFileNotFound() throws Exception {
         var expectedResponseEntity = ResponseEntity.notFound().build();
-        when(fileService.getFileById(anyInt())).thenReturn(Optional.empty());
+        when(fileService.getMetadataById(anyInt())).thenReturn(Optional.empty());
 
-        var view = fileController.getById(anyInt());
+        var view = fileController.getById(1, request(new MockHttpServletRequest("GET", "/files/1")));
 
         assertThat(view).isEqualTo(expectedResponseEntity);
     }
+
+    @Test
+    public void whenRequestWithMatchingETagThenNotModifiedWithoutReadingContent() throws Exception {
+        when(fileService.getMetadataById(anyInt())).thenReturn(Optional.of(testMetadata));
+        var servletRequest = new MockHttpServletRequest("GET", "/files/1");
+        servletRequest.addHeader("If-None-Match", "\"" + SHA256 + "\"");
+
+        var view = fileController.getById(1, request(servletRequest));
+
+        assertThat(view.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(fileService, never()).getFileById(anyInt());
+    }
+
+    @Test
+    public void whenHeadRequestThenGetHeadersWithoutReadingContent() {
+        when(fileService.getMetadataById(anyInt())).thenReturn(Optional.of(testMetadata));
+
+        var view = fileController.getHeadById(1, request(new MockHttpServletRequest("HEAD", "/files/1")));
+
+        assertThat(view.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(view.getBody()).isNull();
+        assertThat(view.getHeaders().getContentLength()).isEqualTo(3L);
+        assertThat(view.getHeaders().getContentType().toString()).isEqualTo("image/gif");
+        assertThat(view.getHeaders().getFirst("Accept-Ranges")).isEqualTo("bytes");
+        verify(fileService, never()).getFileById(anyInt());
+    }
+
+    @Test
+    public void whenRequestRangeThenPartialContentFromRangedRead() throws Exception {
+        when(fileService.getMetadataById(anyInt())).thenReturn(Optional.of(testMetadata));
+        when(fileService.getFileById(1, 1, 2))
+                .thenReturn(Optional.of(new FileDto("testFile.img", new ByteArrayResource(new byte[] {2, 3}), 2)));
+        var servletRequest = new MockHttpServletRequest("GET", "/files/1");
+        servletRequest.addHeader("Range", "bytes=1-");
+
+        var view = fileController.getById(1, request(servletRequest));
+
+        assertThat(view.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(view.getHeaders().getFirst("Content-Range")).isEqualTo("bytes 1-2/3");
+        assertThat(view.getHeaders().getContentLength()).isEqualTo(2L);
+        assertThat(content(view)).isEqualTo(new byte[] {2, 3});
+        verify(fileService, never()).getFileById(anyInt());
+    }
+
+    @Test
+    public void whenRangeStartsAfterEndOfFileThenNotSatisfiable() throws Exception {
+        when(fileService.getMetadataById(anyInt())).thenReturn(Optional.of(testMetadata));
+        var servletRequest = new MockHttpServletRequest("GET", "/files/1");
+        servletRequest.addHeader("Range", "bytes=3-");
+
+        var view = fileController.getById(1, request(servletRequest));
+
+        assertThat(view.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(view.getHeaders().getFirst("Content-Range")).isEqualTo("bytes */3");
+        verify(fileService, never()).getFileById(anyInt(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void whenIfRangeDoesNotMatchThenWholeFile() throws Exception {
+        when(fileService.getMetadataById(anyInt())).thenReturn(Optional.of(testMetadata));
+        when(fileService.getFileById(anyInt())).thenReturn(Optional.of(testFile));
+        var servletRequest = new MockHttpServletRequest("GET", "/files/1");
+        servletRequest.addHeader("Range", "bytes=1-");
+        servletRequest.addHeader("If-Range", "\"old\"");
+
+        var view = fileController.getById(1, request(servletRequest));
+
+        assertThat(view.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(content(view)).isEqualTo(new byte[] {1, 2, 3});
+    }
+
+    private static byte[] content(ResponseEntity<?> view) throws IOException {
+        assertThat(view.getBody()).isExactlyInstanceOf(InputStreamResource.class);
+        try (var input = ((InputStreamResource) view.getBody()).getInputStream()) {
+            return input.readAllBytes();
+        }
+    }
+
+    private static ServletWebRequest request(MockHttpServletRequest servletRequest) {
+        return new ServletWebRequest(servletRequest, new MockHttpServletResponse());
+    }
 }
@@ -0,0 +1,47 @@
+package ru.job4j.dreamjob.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import ru.job4j.dreamjob.service.HealthService;
+
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HealthControllerTest {
+
+    private HealthService healthService;
+
+    private HealthController healthController;
+
+    @BeforeEach
+    public void initServices() {
+        healthService = mock(HealthService.class);
+        healthController = new HealthController(healthService);
+    }
+
+    @Test
+    public void whenAllChecksUpThenGetOk() {
+        var report = Map.of("status", "UP", "deadlocks", "UP");
+        when(healthService.checkLiveness()).thenReturn(report);
+
+        var response = healthController.getLiveness();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(report);
+    }
+
+    @Test
+    public void whenCheckDownThenGetServiceUnavailable() {
+        var report = Map.of("status", "DOWN", "storage", "DOWN: only 10 MB free");
+        when(healthService.checkReadiness()).thenReturn(report);
+
+        var response = healthController.getReadiness();
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getBody()).isEqualTo(report);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.job4j.dreamjob.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import ru.job4j.dreamjob.match.Match;
+import ru.job4j.dreamjob.model.Candidate;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.service.CandidateService;
+import ru.job4j.dreamjob.service.MatchingService;
+import ru.job4j.dreamjob.service.VacancyService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class MatchApiControllerTest {
+
+    private VacancyService vacancyService;
+
+    private CandidateService candidateService;
+
+    private MatchingService matchingService;
+
+    private MatchApiController matchApiController;
+
+    @BeforeEach
+    public void initServices() {
+        vacancyService = mock(VacancyService.class);
+        candidateService = mock(CandidateService.class);
+        matchingService = mock(MatchingService.class);
+        matchApiController = new MatchApiController(vacancyService, candidateService, matchingService);
+    }
+
+    @Test
+    public void whenRequestCandidatesForVacancyThenGetMatchesSkippingDeleted() throws Exception {
+        var vacancy = new Vacancy(1, "Java", "Spring", LocalDateTime.now(), true, 1, 1);
+        when(vacancyService.findById(1)).thenReturn(Optional.of(vacancy));
+        when(matchingService.findCandidates(vacancy, 5)).thenReturn(List.of(new Match(7, 2.5), new Match(8, 1.0)));
+        when(candidateService.findById(7)).thenReturn(Optional.of(new Candidate(7, "Ivan", "Java", LocalDateTime.now(), 1, 1)));
+        when(candidateService.findById(8)).thenReturn(Optional.empty());
+
+        var response = matchApiController.getCandidates(1, 5);
+
+        assertThat(response.getBody().size()).isEqualTo(1);
+        var match = response.getBody().get(0);
+        assertThat(match.getId()).isEqualTo(7);
+        assertThat(match.getName()).isEqualTo("Ivan");
+        assertThat(match.getScore()).isEqualTo(2.5);
+    }
+
+    @Test
+    public void whenRequestVacanciesForUnknownCandidateThenNotFound() throws Exception {
+        when(candidateService.findById(anyInt())).thenReturn(Optional.empty());
+
+        var response = matchApiController.getVacancies(1, 10);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verifyNoInteractions(matchingService);
+    }
+
+    @Test
+    public void whenLimitOutOfRangeThenBadRequest() {
+        assertThatThrownBy(() -> matchApiController.getCandidates(1, 1000))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+}
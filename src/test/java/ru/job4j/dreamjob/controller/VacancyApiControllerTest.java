@@ -0,0 +1,97 @@
+package ru.job4j.dreamjob.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.service.VacancyService;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class VacancyApiControllerTest {
+
+    private VacancyService vacancyService;
+
+    private VacancyApiController vacancyApiController;
+
+    private final LocalDateTime creationDate = LocalDateTime.of(2023, 1, 2, 3, 4);
+
+    @BeforeEach
+    public void initServices() {
+        vacancyService = mock(VacancyService.class);
+        vacancyApiController = new VacancyApiController(vacancyService, new ObjectMapper());
+    }
+
+    @Test
+    public void whenRequestVacanciesThenGetNdjsonWithSelectedFields() throws Exception {
+        var vacancy1 = new Vacancy(1, "test1", "desc1", creationDate, true, 1, 2);
+        var vacancy2 = new Vacancy(2, "test2", "desc2", creationDate, false, 3, 4);
+        when(vacancyService.findPage(0, 10)).thenReturn(List.of(vacancy1, vacancy2));
+
+        var response = vacancyApiController.getAll(0, 10, "id,title");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(write(response.getBody())).isEqualTo("{\"id\":1,\"title\":\"test1\"}\n{\"id\":2,\"title\":\"test2\"}\n");
+    }
+
+    @Test
+    public void whenRequestVacanciesWithoutLimitThenReadPagesUntilLastOne() throws Exception {
+        var page = new ArrayList<Vacancy>();
+        for (int i = 1; i <= 500; i++) {
+            page.add(new Vacancy(i, "title", "desc", creationDate, true, 1, 1));
+        }
+        when(vacancyService.findPage(0, 500)).thenReturn(page);
+        when(vacancyService.findPage(500, 500)).thenReturn(List.of(new Vacancy(501, "last", "desc", creationDate, true, 1, 1)));
+
+        var body = write(vacancyApiController.getAll(0, null, "id").getBody());
+
+        assertThat(body.lines().count()).isEqualTo(501);
+        assertThat(body).endsWith("{\"id\":501}\n");
+        verify(vacancyService, never()).findAll();
+    }
+
+    @Test
+    public void whenRequestUnknownFieldThenBadRequest() {
+        assertThatThrownBy(() -> vacancyApiController.getAll(0, 10, "id,salary"))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("Unknown field: salary");
+    }
+
+    @Test
+    public void whenRequestVacancyByIdThenGetJsonObject() throws Exception {
+        var vacancy = new Vacancy(1, "test1", "desc1", creationDate, true, 1, 2);
+        when(vacancyService.findById(1)).thenReturn(Optional.of(vacancy));
+
+        var response = vacancyApiController.getById(1, null);
+
+        assertThat(response.getBody()).isEqualTo("{\"id\":1,\"title\":\"test1\",\"description\":\"desc1\","
+                + "\"creationDate\":\"2023-01-02T03:04\",\"visible\":true,\"cityId\":1,\"fileId\":2,\"version\":0}");
+    }
+
+    @Test
+    public void whenRequestUnknownVacancyThenNotFound() throws Exception {
+        when(vacancyService.findById(anyInt())).thenReturn(Optional.empty());
+
+        var response = vacancyApiController.getById(1, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private String write(StreamingResponseBody body) throws Exception {
+        var outputStream = new ByteArrayOutputStream();
+        body.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -5,19 +5,27 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.ui.ConcurrentModel;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import ru.job4j.dreamjob.dto.FileDto;
 import ru.job4j.dreamjob.model.City;
 import ru.job4j.dreamjob.model.Vacancy;
 import ru.job4j.dreamjob.service.CityService;
 import ru.job4j.dreamjob.service.VacancyService;
+import ru.job4j.dreamjob.upload.UploadValidator;
 
 import javax.servlet.http.HttpSession;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.Optional;
 
 import static java.time.LocalDateTime.now;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 public class VacancyControllerTest {
@@ -34,8 +42,12 @@ public class VacancyControllerTest {
     public void initServices() {
         vacancyService = mock(VacancyService.class);
         cityService = mock(CityService.class);
-        vacancyController = new VacancyController(vacancyService, cityService);
-        testFile = new MockMultipartFile("testFile.img", new byte[] {1, 2, 3});
+        var uploadValidator = new UploadValidator(DataSize.ofMegabytes(5), DataSize.ofMegabytes(5),
+                DataSize.ofMegabytes(2), DataSize.ofMegabytes(5), 4096, 4096);
+        vacancyController = new VacancyController(vacancyService, cityService, uploadValidator);
+        /* заголовок GIF 1x1: проверка загрузки читает только его */
+        testFile = new MockMultipartFile("file", "testFile.gif", "image/gif",
+                new byte[] {'G', 'I', 'F', '8', '9', 'a', 1, 0, 1, 0, 0, 0, 0, ';'});
     }
 
     @Test
@@ -54,6 +66,28 @@ public class VacancyControllerTest {
         assertThat(actualVacancies).isEqualTo(expectedVacancies);
     }
 
+    @Test
+    public void whenExportThenGetCsvWithCityNamesAndFilterPassedToService() throws Exception {
+        var creationDate = LocalDateTime.of(2024, 3, 1, 10, 30);
+        var vacancy = new Vacancy(1, "Java, Senior", "say \"hi\"", creationDate, true, 2, 0);
+        when(cityService.findAll()).thenReturn(List.of(new City(1, "Москва"), new City(2, "Санкт-Петербург")));
+        doAnswer(invocation -> {
+            Consumer<Vacancy> action = invocation.getArgument(3);
+            action.accept(vacancy);
+            return null;
+        }).when(vacancyService).streamAll(anyInt(), any(), any(), any());
+
+        var response = vacancyController.export(2, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31));
+        var outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+
+        verify(vacancyService).streamAll(eq(2), eq(LocalDate.of(2024, 3, 1).atStartOfDay()), eq(LocalDate.of(2024, 4, 1).atStartOfDay()), any());
+        assertThat(response.getHeaders().getContentType()).isEqualTo(CsvWriter.TEXT_CSV);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "\uFEFFid,title,description,creation_date,visible,city\r\n"
+                + "1,\"Java, Senior\",\"say \"\"hi\"\"\",2024-03-01 10:30:00,true,Санкт-Петербург\r\n");
+    }
+
     @Test
     public void whenRequestVacancyCreationPageThenGetPageWithCities() {
         var city1 = new City(1, "Москва");
@@ -73,13 +107,14 @@ public class VacancyControllerTest {
     @Test
     public void whenPostVacancyWithFileThenSameDataAndRedirectToVacanciesPage() throws Exception {
         var vacancy = new Vacancy(1, "test1", "desc1", now(), true, 1, 5);
-        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile.getBytes());
+        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile, testFile.getSize());
+        fileDto.setContentType("image/gif");
         var vacancyArgumentCaptor = ArgumentCaptor.forClass(Vacancy.class);
         var fileDtoArgumentCaptor = ArgumentCaptor.forClass(FileDto.class);
         when(vacancyService.save(vacancyArgumentCaptor.capture(), fileDtoArgumentCaptor.capture())).thenReturn(vacancy);
 
         var model = new ConcurrentModel();
-        var view = vacancyController.create(vacancy, testFile, model);
+        var view = vacancyController.create(vacancy, testFile, model, mock(HttpSession.class));
         var actualVacancy = vacancyArgumentCaptor.getValue();
         var actualFileDto = fileDtoArgumentCaptor.getValue();
 
@@ -95,7 +130,7 @@ public class VacancyControllerTest {
         when(vacancyService.save(any(), any())).thenThrow(expectedException);
 
         var model = new ConcurrentModel();
-        var view = vacancyController.create(new Vacancy(), testFile, model);
+        var view = vacancyController.create(new Vacancy(), testFile, model, mock(HttpSession.class));
         var actualExceptionMessage = model.getAttribute("message");
 
         assertThat(view).isEqualTo("errors/404");
@@ -142,13 +177,14 @@ public class VacancyControllerTest {
     @Test
     public void whenUpdateVacancyThenUpdatedDataAndRedirectToVacanciesPage() throws Exception {
         var vacancy = new Vacancy(1, "test1", "desc1", now(), true, 1, 5);
-        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile.getBytes());
+        var fileDto = new FileDto(testFile.getOriginalFilename(), testFile, testFile.getSize());
+        fileDto.setContentType("image/gif");
         var vacancyArgumentCaptor = ArgumentCaptor.forClass(Vacancy.class);
         var fileDtoArgumentCaptor = ArgumentCaptor.forClass(FileDto.class);
         when(vacancyService.update(vacancyArgumentCaptor.capture(), fileDtoArgumentCaptor.capture())).thenReturn(true);
 
         var model = new ConcurrentModel();
-        var view = vacancyController.update(vacancy, testFile, model);
+        var view = vacancyController.update(vacancy, testFile, model, mock(HttpSession.class));
         var actualVacancy = vacancyArgumentCaptor.getValue();
         var actualFileDto = fileDtoArgumentCaptor.getValue();
 
@@ -164,20 +200,35 @@ public class VacancyControllerTest {
         when(vacancyService.update(any(Vacancy.class), any(FileDto.class))).thenReturn(false);
 
         var model = new ConcurrentModel();
-        var view = vacancyController.update(vacancy, testFile, model);
+        var view = vacancyController.update(vacancy, testFile, model, mock(HttpSession.class));
         var actualVacancyMessage = model.getAttribute("message");
 
         assertThat(view).isEqualTo("errors/404");
         assertThat(actualVacancyMessage).isEqualTo("Вакансия с указанным идентификатором не найдена");
     }
 
+    @Test
+    public void whenUpdateStaleVacancyThenGetConflictMessage() {
+        var vacancy = new Vacancy(1, "test1", "desc1", now(), true, 1, 5);
+        when(vacancyService.update(any(Vacancy.class), any(FileDto.class))).thenReturn(false);
+        when(vacancyService.findById(1)).thenReturn(Optional.of(new Vacancy(1, "test2", "desc2", now(), true, 1, 5)));
+
+        var model = new ConcurrentModel();
+        var view = vacancyController.update(vacancy, testFile, model, mock(HttpSession.class));
+        var actualVacancyMessage = model.getAttribute("message");
+
+        assertThat(view).isEqualTo("errors/404");
+        assertThat(actualVacancyMessage)
+                .isEqualTo("Вакансию уже изменил другой пользователь. Откройте её заново и повторите правки");
+    }
+
     @Test
     public void whenSomeExceptionThrownWhileUpdateThenGetErrorPageWithMessage() {
         var expectedException = new RuntimeException("Failed to update file");
         when(vacancyService.update(any(), any())).thenThrow(expectedException);
 
         var model = new ConcurrentModel();
-        var view = vacancyController.update(new Vacancy(), testFile, model);
+        var view = vacancyController.update(new Vacancy(), testFile, model, mock(HttpSession.class));
         var actualExceptionMessage = model.getAttribute("message");
 
         assertThat(view).isEqualTo("errors/404");
@@ -0,0 +1,103 @@
+package ru.job4j.dreamjob.filter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.job4j.dreamjob.model.User;
+import ru.job4j.dreamjob.service.CandidateService;
+import ru.job4j.dreamjob.service.VacancyService;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RenderedPageCacheFilterTest {
+
+    private VacancyService vacancyService;
+
+    private RenderedPageCacheFilter filter;
+
+    private AtomicInteger renders;
+
+    @BeforeEach
+    public void initFilter() {
+        vacancyService = mock(VacancyService.class);
+        filter = new RenderedPageCacheFilter(vacancyService, mock(CandidateService.class), 10, Duration.ofMinutes(1));
+        renders = new AtomicInteger();
+    }
+
+    @Test
+    public void whenSameVersionThenPageRenderedOnce() throws Exception {
+        when(vacancyService.getVersion()).thenReturn(1L);
+
+        var first = perform(null);
+        var second = perform(null);
+
+        assertThat(renders.get()).isEqualTo(1);
+        assertThat(second.getContentAsString()).isEqualTo(first.getContentAsString());
+        assertThat(second.getHeader("ETag")).matches("W/\"[0-9a-z]+-1-7\"");
+    }
+
+    @Test
+    public void whenVersionChangedThenPageRenderedAgain() throws Exception {
+        when(vacancyService.getVersion()).thenReturn(1L);
+        perform(null);
+        when(vacancyService.getVersion()).thenReturn(2L);
+
+        var response = perform(null);
+
+        assertThat(renders.get()).isEqualTo(2);
+        assertThat(response.getContentAsString()).isEqualTo("page 2");
+    }
+
+    @Test
+    public void whenEtagMatchesThenNotModifiedWithoutRendering() throws Exception {
+        when(vacancyService.getVersion()).thenReturn(1L);
+        var etag = perform(null).getHeader("ETag");
+
+        var response = perform(etag);
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(renders.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenEtagFromPreviousStartWithSameVersionThenPageRendered() throws Exception {
+        when(vacancyService.getVersion()).thenReturn(1L);
+        var etag = perform(null).getHeader("ETag");
+        filter = new RenderedPageCacheFilter(vacancyService, mock(CandidateService.class), 10, Duration.ofMinutes(1));
+
+        var response = perform(etag);
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(response.getHeader("ETag")).isNotEqualTo(etag);
+        assertThat(renders.get()).isEqualTo(2);
+    }
+
+    private MockHttpServletResponse perform(String ifNoneMatch) throws Exception {
+        var request = new MockHttpServletRequest("GET", "/vacancies");
+        request.setAttribute("user", new User(7, "ya@ya.ru", "ivan", "1111"));
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        var response = new MockHttpServletResponse();
+        var servlet = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("text/html;charset=UTF-8");
+                resp.getWriter().write("page " + renders.incrementAndGet());
+            }
+        };
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+}
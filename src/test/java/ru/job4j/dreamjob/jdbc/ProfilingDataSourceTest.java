@@ -0,0 +1,59 @@
+package ru.job4j.dreamjob.jdbc;
+
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.TestDatasources;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class ProfilingDataSourceTest {
+
+    @Test
+    public void whenQueriesExecutedThenStatisticsGroupedByShape() {
+        var collector = new QueryStatisticsCollector(Duration.ofMinutes(1), 100);
+        var configuration = new DatasourceConfiguration();
+        var sql2o = configuration.databaseClient(
+                TestDatasources.connectionPool("jdbc:h2:mem:profiling;DB_CLOSE_DELAY=-1", "", ""), collector);
+        try (var connection = sql2o.open()) {
+            connection.createQuery("CREATE TABLE items (id int)").executeUpdate();
+        }
+        for (int i = 1; i <= 3; i++) {
+            try (var connection = sql2o.open()) {
+                connection.createQuery("INSERT INTO items (id) VALUES (:id)").addParameter("id", i).executeUpdate();
+            }
+        }
+        try (var connection = sql2o.open()) {
+            connection.createQuery("SELECT id FROM items WHERE id > :id").addParameter("id", 0).executeScalarList(Integer.class);
+        }
+
+        var statistics = collector.getTop(10);
+        var insert = find(statistics, "INSERT INTO items (id) VALUES (?)");
+        var select = find(statistics, "SELECT id FROM items WHERE id > ?");
+
+        assertThat(statistics.size()).isEqualTo(3);
+        assertThat(insert.getCalls()).isEqualTo(3L);
+        assertThat(insert.getRows()).isEqualTo(3L);
+        assertThat(select.getCalls()).isEqualTo(1L);
+        assertThat(select.getRows()).isEqualTo(3L);
+    }
+
+    @Test
+    public void whenShapesLimitReachedThenNewShapesGoToOther() {
+        var collector = new QueryStatisticsCollector(Duration.ofMinutes(1), 1);
+
+        collector.record("SELECT 1", 1, 1_000_000, 1, 0);
+        collector.record("SELECT 2", 1, 2_000_000, 1, 0);
+        collector.record("SELECT 1", 1, 1_000_000, 1, 0);
+
+        var statistics = collector.getTop(10);
+        assertThat(find(statistics, "SELECT 1").getCalls()).isEqualTo(2L);
+        assertThat(find(statistics, QueryStatisticsCollector.OTHER).getTotalMillis()).isEqualTo(2L);
+    }
+
+    private static QueryStatistics find(List<QueryStatistics> statistics, String sql) {
+        return statistics.stream().filter(query -> query.getSql().equals(sql)).findFirst().orElseThrow();
+    }
+}
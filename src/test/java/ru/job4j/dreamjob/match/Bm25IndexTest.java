@@ -0,0 +1,74 @@
+package ru.job4j.dreamjob.match;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class Bm25IndexTest {
+
+    @Test
+    public void whenTokenizeThenLowerCaseWordsWithoutYo() {
+        assertThat(Tokenizer.tokenize("Ёлочный JAVA-разработчик, 5 лет", null))
+                .isEqualTo(List.of("елочный", "java", "разработчик", "лет"));
+    }
+
+    @Test
+    public void whenSearchThenRareAndFrequentTermsRankFirst() {
+        var index = new Bm25Index(2, Integer.MAX_VALUE);
+        index.put(1, 1, Tokenizer.tokenize("Java разработчик Spring"));
+        index.put(2, 1, Tokenizer.tokenize("Python разработчик"));
+        index.put(3, 1, Tokenizer.tokenize("Java Java Spring Hibernate"));
+        index.put(4, 1, Tokenizer.tokenize("Бухгалтер"));
+
+        var ids = ids(index.search(Tokenizer.tokenize("Java Spring разработчик"), 0, 10));
+
+        assertThat(ids).isEqualTo(List.of(1, 3, 2));
+    }
+
+    @Test
+    public void whenSearchInCityThenOtherCitiesSkipped() {
+        var index = new Bm25Index(2, Integer.MAX_VALUE);
+        index.put(1, 1, Tokenizer.tokenize("Java"));
+        index.put(2, 2, Tokenizer.tokenize("Java"));
+
+        assertThat(ids(index.search(List.of("java"), 2, 10))).isEqualTo(List.of(2));
+    }
+
+    @Test
+    public void whenDocumentReplacedOrRemovedThenOldTermsNotFound() {
+        var index = new Bm25Index(2, Integer.MAX_VALUE);
+        index.put(1, 1, Tokenizer.tokenize("Java"));
+        index.put(2, 1, Tokenizer.tokenize("Java"));
+
+        index.put(1, 1, Tokenizer.tokenize("Go"));
+        index.remove(2);
+
+        assertThat(index.search(List.of("java"), 0, 10).isEmpty()).isTrue();
+        assertThat(ids(index.search(List.of("go"), 0, 10))).isEqualTo(List.of(1));
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenSearchInParallelThenSameTopAsSequential() {
+        var sequential = new Bm25Index(4, Integer.MAX_VALUE);
+        var parallel = new Bm25Index(4, 0);
+        var words = List.of("java", "spring", "sql", "docker", "kafka", "python", "linux");
+        for (int id = 1; id <= 1_000; id++) {
+            var tokens = List.of(words.get(id % 7), words.get(id % 5), words.get(id % 3));
+            sequential.put(id, id % 3, tokens);
+            parallel.put(id, id % 3, tokens);
+        }
+        var query = List.of("java", "kafka", "sql");
+
+        var expected = ids(sequential.search(query, 1, 20));
+
+        assertThat(expected.size()).isEqualTo(20);
+        assertThat(ids(parallel.search(query, 1, 20))).isEqualTo(expected);
+    }
+
+    private static List<Integer> ids(List<Match> matches) {
+        return matches.stream().map(Match::getId).toList();
+    }
+}
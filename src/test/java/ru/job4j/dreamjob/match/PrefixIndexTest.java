@@ -0,0 +1,51 @@
+package ru.job4j.dreamjob.match;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class PrefixIndexTest {
+
+    @Test
+    public void whenFindByPrefixOfAnyWordThenIgnoreCaseAndYo() {
+        var index = new PrefixIndex();
+        index.add("Ведущий Java разработчик");
+        index.add("Пёстрый дизайнер");
+        index.add("Бухгалтер");
+
+        assertThat(index.find("РАЗР", 10)).isEqualTo(List.of("Ведущий Java разработчик"));
+        assertThat(index.find("пестр", 10)).isEqualTo(List.of("Пёстрый дизайнер"));
+        assertThat(index.find("ведущий  java", 10)).isEqualTo(List.of("Ведущий Java разработчик"));
+        assertThat(index.find("в", 10)).isEqualTo(List.of("Ведущий Java разработчик"));
+    }
+
+    @Test
+    public void whenSameTextAddedTwiceThenShownOnceUntilBothRemoved() {
+        var index = new PrefixIndex();
+        index.add("Java разработчик");
+        index.add("JAVA разработчик");
+
+        assertThat(index.find("java", 10)).isEqualTo(List.of("Java разработчик"));
+        index.remove("Java разработчик");
+        assertThat(index.find("java", 10)).isEqualTo(List.of("Java разработчик"));
+        index.remove("java разработчик");
+        assertThat(index.find("java", 10).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void whenFindThenLimitAndAlphabeticalOrder() {
+        var index = new PrefixIndex();
+        index.add("Москва");
+        index.add("Мурманск");
+        index.add("Майкоп");
+
+        assertThat(index.find("м", 2)).isEqualTo(List.of("Майкоп", "Москва"));
+    }
+
+    @Test
+    public void whenTypedInLatinLayoutThenConvertedToCyrillic() {
+        assertThat(PrefixIndex.toCyrillicLayout("ghjuhfvvbcn")).isEqualTo("программист");
+    }
+}
@@ -0,0 +1,107 @@
+package ru.job4j.dreamjob.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void whenReopenedThenRecordsReplayedInOrder() throws Exception {
+        try (var log = new WriteAheadLog(directory, "test", true, 100)) {
+            log.open(record -> { }, List::of);
+            log.write(() -> true, out -> out.writeInt(1), () -> { });
+            log.write(() -> false, out -> out.writeInt(2), () -> { });
+            log.write(() -> true, out -> out.writeInt(3), () -> { });
+        }
+
+        assertThat(replay()).isEqualTo(List.of(1, 3));
+    }
+
+    @Test
+    public void whenTailIsTornThenItIsDroppedAndLogStaysWritable() throws Exception {
+        try (var log = new WriteAheadLog(directory, "test", true, 100)) {
+            log.open(record -> { }, List::of);
+            log.write(() -> true, out -> out.writeInt(1), () -> { });
+            log.write(() -> true, out -> out.writeInt(2), () -> { });
+        }
+        var file = directory.resolve("test.wal");
+        Files.write(file, new byte[] {0, 0, 0, 4, 0, 0}, StandardOpenOption.APPEND);
+
+        try (var log = new WriteAheadLog(directory, "test", true, 100)) {
+            log.open(record -> { }, List::of);
+            log.write(() -> true, out -> out.writeInt(3), () -> { });
+        }
+
+        assertThat(replay()).isEqualTo(List.of(1, 2, 3));
+    }
+
+    @Test
+    public void whenCompactAfterIsReachedThenStateMovesToSnapshot() throws Exception {
+        var state = new ArrayList<Integer>();
+        try (var log = new WriteAheadLog(directory, "test", true, 3)) {
+            log.open(record -> { }, () -> state.stream()
+                    .<WriteAheadLog.RecordWriter>map(value -> out -> out.writeInt(value))
+                    .toList());
+            for (int i = 1; i <= 4; i++) {
+                var value = i;
+                log.write(() -> true, out -> out.writeInt(value), () -> state.add(value));
+            }
+        }
+
+        assertThat(Files.exists(directory.resolve("test.snapshot"))).isTrue();
+        assertThat(Files.size(directory.resolve("test.wal"))).isEqualTo(12L);
+        assertThat(replay()).isEqualTo(List.of(1, 2, 3, 4));
+    }
+
+    @Test
+    public void whenRecordIsNotWrittenThenMutationIsNotApplied() throws Exception {
+        var state = new ArrayList<Integer>();
+        try (var log = new WriteAheadLog(directory, "test", true, 100)) {
+            log.open(record -> { }, List::of);
+            log.write(() -> true, out -> out.writeInt(1), () -> state.add(1));
+            assertThatThrownBy(() -> log.write(() -> true, out -> {
+                out.writeInt(2);
+                throw new IOException("No space left on device");
+            }, () -> state.add(2))).isInstanceOf(UncheckedIOException.class);
+            log.write(() -> true, out -> out.writeInt(3), () -> state.add(3));
+        }
+
+        assertThat(state).isEqualTo(List.of(1, 3));
+        assertThat(replay()).isEqualTo(List.of(1, 3));
+    }
+
+    @Test
+    public void whenLogIsClosedThenMutationIsNotApplied() throws Exception {
+        var state = new ArrayList<Integer>();
+        var log = new WriteAheadLog(directory, "test", true, 100);
+        log.open(record -> { }, List::of);
+        log.close();
+
+        assertThatThrownBy(() -> log.write(() -> true, out -> out.writeInt(1), () -> state.add(1)))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(state).isEqualTo(List.of());
+    }
+
+    private List<Integer> replay() throws Exception {
+        var values = new ArrayList<Integer>();
+        try (var log = new WriteAheadLog(directory, "test", true, 100)) {
+            log.open((ByteBuffer record) -> values.add(record.getInt()), List::of);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,76 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.model.Vacancy;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static java.time.LocalDateTime.now;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.*;
+
+public class CachingVacancyRepositoryTest {
+
+    private VacancyRepository vacancyRepository;
+
+    private CachingVacancyRepository cachingVacancyRepository;
+
+    @BeforeEach
+    public void initRepositories() {
+        vacancyRepository = mock(VacancyRepository.class);
+        cachingVacancyRepository = new CachingVacancyRepository(vacancyRepository, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void whenFindByIdTwiceThenQueryOnce() {
+        var vacancy = new Vacancy(1, "title", "description", now(), true, 1, 1);
+        when(vacancyRepository.findById(1)).thenReturn(Optional.of(vacancy));
+
+        cachingVacancyRepository.findById(1);
+        var cached = cachingVacancyRepository.findById(1);
+
+        assertThat(cached).isEqualTo(Optional.of(vacancy));
+        verify(vacancyRepository, times(1)).findById(1);
+        assertThat(cachingVacancyRepository.getStatistics().getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void whenUpdateThenEntryInvalidated() {
+        var vacancy = new Vacancy(1, "title", "description", now(), true, 1, 1);
+        when(vacancyRepository.findById(1)).thenReturn(Optional.of(vacancy));
+        when(vacancyRepository.update(vacancy)).thenReturn(true);
+
+        cachingVacancyRepository.findById(1);
+        cachingVacancyRepository.update(vacancy);
+        cachingVacancyRepository.findById(1);
+
+        verify(vacancyRepository, times(2)).findById(1);
+    }
+
+    @Test
+    public void whenDeleteThenEntryInvalidated() {
+        when(vacancyRepository.findById(1)).thenReturn(Optional.of(new Vacancy()));
+        when(vacancyRepository.deleteById(1)).thenReturn(true);
+
+        cachingVacancyRepository.findById(1);
+        cachingVacancyRepository.deleteById(1);
+        when(vacancyRepository.findById(1)).thenReturn(Optional.empty());
+
+        assertThat(cachingVacancyRepository.findById(1)).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    public void whenSaveThenNegativeEntryInvalidated() {
+        var vacancy = new Vacancy(1, "title", "description", now(), true, 1, 1);
+        when(vacancyRepository.findById(1)).thenReturn(Optional.empty());
+        when(vacancyRepository.save(vacancy)).thenReturn(vacancy);
+
+        cachingVacancyRepository.findById(1);
+        cachingVacancyRepository.save(vacancy);
+        when(vacancyRepository.findById(1)).thenReturn(Optional.of(vacancy));
+
+        assertThat(cachingVacancyRepository.findById(1)).isEqualTo(Optional.of(vacancy));
+    }
+}
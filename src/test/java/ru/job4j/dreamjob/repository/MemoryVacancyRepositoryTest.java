@@ -0,0 +1,185 @@
+package ru.job4j.dreamjob.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.persistence.WriteAheadLog;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.time.LocalDateTime.now;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class MemoryVacancyRepositoryTest {
+
+    private static final int INITIAL_SIZE = 6;
+
+    @Test
+    public void whenFindAllThenGetVacanciesInIdOrder() {
+        var repository = new MemoryVacancyRepository();
+        var vacancy = repository.save(new Vacancy(0, "title", "description", now(), true, 1, 0));
+        repository.deleteById(2);
+
+        var ids = repository.findAll().stream().map(Vacancy::getId).toList();
+
+        assertThat(ids).isEqualTo(List.of(1, 3, 4, 5, 6, vacancy.getId()));
+    }
+
+    @Test
+    public void whenFindPageThenGetNextInIdOrder() {
+        var repository = new MemoryVacancyRepository();
+        repository.deleteById(3);
+
+        var ids = repository.findPage(2, 2).stream().map(Vacancy::getId).toList();
+
+        assertThat(ids).isEqualTo(List.of(4, 5));
+    }
+
+    @Test
+    public void whenUpdateWithStaleVersionThenGetFalseAndKeepFirstUpdate() {
+        var repository = new MemoryVacancyRepository();
+        var first = new Vacancy(1, "first", "description", now(), true, 1, 0);
+        var second = new Vacancy(1, "second", "description", now(), true, 1, 0);
+
+        var isFirstUpdated = repository.update(first);
+        var isSecondUpdated = repository.update(second);
+
+        assertThat(isFirstUpdated).isTrue();
+        assertThat(isSecondUpdated).isFalse();
+        assertThat(second.getVersion()).isEqualTo(0);
+        assertThat(repository.findById(1).get().getTitle()).isEqualTo("first");
+        assertThat(repository.findById(1).get().getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenUpdateStoredInstanceThenUpdated() {
+        var repository = new MemoryVacancyRepository();
+        var stored = repository.findById(1).get();
+        stored.setTitle("changed");
+
+        assertThat(repository.update(stored)).isTrue();
+        assertThat(repository.findById(1).get().getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenStoredInstanceUpdatedWithStaleVersionThenSecondUpdateFails() {
+        var repository = new MemoryVacancyRepository();
+        var stored = repository.findById(1).get();
+        var staleVersion = stored.getVersion();
+
+        var isFirstUpdated = repository.update(stored);
+        stored.setVersion(staleVersion);
+        var isSecondUpdated = repository.update(stored);
+
+        assertThat(isFirstUpdated).isTrue();
+        assertThat(isSecondUpdated).isFalse();
+        assertThat(repository.findById(1).get().getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenUpdateFailsThenPublishedInstanceNotChanged() {
+        var repository = new MemoryVacancyRepository();
+        var stored = repository.findById(1).get();
+        repository.update(new Vacancy(1, "first", "description", now(), true, 1, 0));
+
+        var isUpdated = repository.update(new Vacancy(1, "second", "description", now(), true, 1, 0));
+
+        assertThat(isUpdated).isFalse();
+        assertThat(stored.getVersion()).isEqualTo(0);
+        assertThat(repository.findById(1).get()).isNotSameAs(stored);
+    }
+
+    @Test
+    public void whenReopenedFromLogThenStateAndIdSequenceRestored(@TempDir Path directory) throws Exception {
+        try (var log = new WriteAheadLog(directory, "vacancies", false, 3)) {
+            var repository = new MemoryVacancyRepository(log);
+            var vacancy1 = repository.save(new Vacancy(0, "title1", "description1", now(), true, 1, 0));
+            repository.save(new Vacancy(0, "title2", "description2", now(), true, 2, 0));
+            var vacancy3 = repository.save(new Vacancy(0, "title3", "description3", now(), true, 3, 0));
+            vacancy1.setTitle("updated");
+            repository.update(vacancy1);
+            repository.deleteById(vacancy3.getId());
+        }
+
+        try (var log = new WriteAheadLog(directory, "vacancies", false, 3)) {
+            var repository = new MemoryVacancyRepository(log);
+            var restored = repository.findAll();
+            var next = repository.save(new Vacancy(0, "title4", "description4", now(), true, 1, 0));
+
+            assertThat(restored.stream().map(Vacancy::getTitle).toList()).isEqualTo(List.of("updated", "title2"));
+            assertThat(repository.findById(1).get().getVersion()).isEqualTo(1);
+            assertThat(next.getId()).isEqualTo(4);
+        }
+    }
+
+    /*
+     * Писатели параллельно добавляют, меняют и удаляют вакансии, а читатели всё это время проверяют,
+     * что каждый снимок findAll упорядочен по id. В конце не должно потеряться ни одной записи
+     * и ни одного успешного обновления.
+     */
+    @Test
+    public void whenConcurrentWritesThenReadersSeeOrderedSnapshotsAndNothingIsLost() throws Exception {
+        var repository = new MemoryVacancyRepository();
+        var writers = 4;
+        var savesPerWriter = 2_000;
+        var executor = Executors.newFixedThreadPool(writers + 2);
+        var start = new CountDownLatch(1);
+        var writing = new AtomicBoolean(true);
+        var unordered = new AtomicInteger();
+        var updates = new AtomicInteger();
+        var futures = new ArrayList<Future<?>>();
+        for (int w = 0; w < writers; w++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < savesPerWriter; i++) {
+                    var vacancy = repository.save(new Vacancy(0, "title", "description", now(), true, 1, 0));
+                    var copy = new Vacancy(vacancy.getId(), "updated", "description", now(), true, 1, 0);
+                    if (repository.update(copy)) {
+                        updates.incrementAndGet();
+                    }
+                    if (i % 2 == 0) {
+                        repository.deleteById(vacancy.getId());
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < 2; r++) {
+            executor.submit(() -> {
+                start.await();
+                while (writing.get()) {
+                    var previous = 0;
+                    for (var vacancy : repository.findAll()) {
+                        if (vacancy.getId() <= previous) {
+                            unordered.incrementAndGet();
+                        }
+                        previous = vacancy.getId();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        for (var future : futures) {
+            future.get();
+        }
+        writing.set(false);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        var remaining = repository.findAll();
+        assertThat(unordered.get()).isEqualTo(0);
+        assertThat(updates.get()).isEqualTo(writers * savesPerWriter);
+        assertThat(remaining.size()).isEqualTo(INITIAL_SIZE + writers * savesPerWriter / 2);
+        assertThat(remaining.stream().filter(vacancy -> vacancy.getVersion() == 1).count())
+                .isEqualTo((long) writers * savesPerWriter / 2);
+    }
+}
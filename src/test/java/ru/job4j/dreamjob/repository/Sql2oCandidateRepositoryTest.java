@@ -1,14 +1,18 @@
 package ru.job4j.dreamjob.repository;
 
+import org.apache.commons.dbcp2.BasicDataSource;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
-import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.TestDatasources;
 import ru.job4j.dreamjob.model.File;
 import ru.job4j.dreamjob.model.Candidate;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
@@ -16,9 +20,14 @@ import static java.time.LocalDateTime.now;
 import static java.util.Collections.emptyList;
 import static java.util.Optional.empty;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
 public class Sql2oCandidateRepositoryTest {
 
+    private static BasicDataSource datasource;
+
+    private static Sql2o sql2o;
+
     private static Sql2oCandidateRepository sql2oCandidateRepository;
 
     private static Sql2oFileRepository sql2oFileRepository;
@@ -35,12 +44,11 @@ public class Sql2oCandidateRepositoryTest {
         var username = properties.getProperty("datasource.username");
         var password = properties.getProperty("datasource.password");
 
-        var configuration = new DatasourceConfiguration();
-        var datasource = configuration.connectionPool(url, username, password);
-        var sql2o = configuration.databaseClient(datasource);
+        datasource = (BasicDataSource) TestDatasources.connectionPool(url, username, password);
+        sql2o = TestDatasources.databaseClient(datasource);
 
-        sql2oCandidateRepository = new Sql2oCandidateRepository(sql2o);
-        sql2oFileRepository = new Sql2oFileRepository(sql2o);
+        sql2oCandidateRepository = new Sql2oCandidateRepository(sql2o, sql2o, Duration.ZERO);
+        sql2oFileRepository = new Sql2oFileRepository(sql2o, sql2o, Duration.ZERO);
 
         file = new File("test", "test");
         sql2oFileRepository.save(file);
@@ -53,9 +61,8 @@ public class Sql2oCandidateRepositoryTest {
 
     @AfterEach
     public void clearCandidates() {
-        var candidates = sql2oCandidateRepository.findAll();
-        for (var candidate : candidates) {
-            sql2oCandidateRepository.deleteById(candidate.getId());
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DELETE FROM candidates").executeUpdate();
         }
     }
 
@@ -77,6 +84,39 @@ public class Sql2oCandidateRepositoryTest {
         assertThat(result).isEqualTo(List.of(candidate1, candidate2, candidate3));
     }
 
+    @Test
+    public void whenFindPageThenGetNextInIdOrder() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var candidate1 = sql2oCandidateRepository.save(new Candidate(0, "name1", "description1", creationDate, 1, file.getId()));
+        var candidate2 = sql2oCandidateRepository.save(new Candidate(0, "name2", "description2", creationDate, 1, file.getId()));
+        var candidate3 = sql2oCandidateRepository.save(new Candidate(0, "name3", "description3", creationDate, 1, file.getId()));
+        var firstPage = sql2oCandidateRepository.findPage(0, 2);
+        var secondPage = sql2oCandidateRepository.findPage(candidate2.getId(), 2);
+        assertThat(firstPage).isEqualTo(List.of(candidate1, candidate2));
+        assertThat(secondPage).isEqualTo(List.of(candidate3));
+    }
+
+    @Test
+    public void whenStreamAllThenGetAllInIdOrder() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var candidate1 = sql2oCandidateRepository.save(new Candidate(0, "name1", "description1", creationDate, 1, file.getId()));
+        var candidate2 = sql2oCandidateRepository.save(new Candidate(0, "name2", "description2", creationDate, 1, file.getId()));
+        var candidate3 = sql2oCandidateRepository.save(new Candidate(0, "name3", "description3", creationDate, 1, file.getId()));
+        var streamed = new ArrayList<Candidate>();
+        sql2oCandidateRepository.streamAll(streamed::add);
+        assertThat(streamed).isEqualTo(List.of(candidate1, candidate2, candidate3));
+    }
+
+    @Test
+    public void whenStreamActionFailsThenConnectionIsReleased() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        sql2oCandidateRepository.save(new Candidate(0, "name1", "description1", creationDate, 1, file.getId()));
+        assertThatThrownBy(() -> sql2oCandidateRepository.streamAll(candidate -> {
+            throw new IllegalStateException("stop");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(datasource.getNumActive()).isEqualTo(0);
+    }
+
     @Test
     public void whenDontSaveThenNothingFound() {
         assertThat(sql2oCandidateRepository.findAll()).isEqualTo(emptyList());
@@ -112,6 +152,36 @@ public class Sql2oCandidateRepositoryTest {
         assertThat(savedCandidate).usingRecursiveComparison().isEqualTo(updatedCandidate);
     }
 
+    @Test
+    public void whenUpdateWithStaleVersionThenGetFalseAndKeepFirstUpdate() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var candidate = sql2oCandidateRepository.save(new Candidate(0, "name", "description", creationDate, 1, file.getId()));
+        var first = sql2oCandidateRepository.findById(candidate.getId()).get();
+        var second = sql2oCandidateRepository.findById(candidate.getId()).get();
+        first.setDescription("first");
+        second.setDescription("second");
+        var isFirstUpdated = sql2oCandidateRepository.update(first);
+        var isSecondUpdated = sql2oCandidateRepository.update(second);
+        var savedCandidate = sql2oCandidateRepository.findById(candidate.getId()).get();
+        assertThat(isFirstUpdated).isTrue();
+        assertThat(isSecondUpdated).isFalse();
+        assertThat(savedCandidate.getDescription()).isEqualTo("first");
+        assertThat(savedCandidate.getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenDeleteThenRowIsKeptUntilPurged() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var candidate = sql2oCandidateRepository.save(new Candidate(0, "name", "description", creationDate, 1, file.getId()));
+        sql2oCandidateRepository.deleteById(candidate.getId());
+        var purgedBeforeDeletion = sql2oCandidateRepository.purgeDeleted(now().minusMinutes(1), 10);
+        var purged = sql2oCandidateRepository.purgeDeleted(now().plusMinutes(1), 10);
+        assertThat(sql2oCandidateRepository.findById(candidate.getId())).isEqualTo(empty());
+        assertThat(sql2oCandidateRepository.update(candidate)).isFalse();
+        assertThat(purgedBeforeDeletion).isEqualTo(0);
+        assertThat(purged).isEqualTo(1);
+    }
+
     @Test
     public void whenUpdateUnExistingCandidateThenGetFalse() {
         var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
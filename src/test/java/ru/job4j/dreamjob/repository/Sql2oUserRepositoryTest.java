@@ -4,7 +4,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.sql2o.Sql2o;
-import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import ru.job4j.dreamjob.configuration.TestDatasources;
 import ru.job4j.dreamjob.model.User;
 
 import java.util.Properties;
@@ -27,9 +27,8 @@ public class Sql2oUserRepositoryTest {
         var username = properties.getProperty("datasource.username");
         var password = properties.getProperty("datasource.password");
 
-        var configuration = new DatasourceConfiguration();
-        var datasource = configuration.connectionPool(url, username, password);
-        sql2o = configuration.databaseClient(datasource);
+        var datasource = TestDatasources.connectionPool(url, username, password);
+        sql2o = TestDatasources.databaseClient(datasource);
 
         sql2oUserRepository = new Sql2oUserRepository(sql2o);
 
@@ -57,4 +56,14 @@ public class Sql2oUserRepositoryTest {
         assertThat(user).isEmpty();
     }
 
+    @Test
+    public void whenSaveTheSameEmailUserThenFirstUserIsKept() {
+        var first = sql2oUserRepository.save(new User(0, "ya@ya.ru", "ivan", "1111"));
+        sql2oUserRepository.save(new User(0, "ya@ya.ru", "roma", "1122"));
+        var savedUser = sql2oUserRepository.findByEmailAndPassword("ya@ya.ru", "1111");
+        var rejectedUser = sql2oUserRepository.findByEmailAndPassword("ya@ya.ru", "1122");
+        assertThat(savedUser).usingRecursiveComparison().isEqualTo(first);
+        assertThat(rejectedUser).isEmpty();
+    }
+
 }
@@ -1,14 +1,18 @@
 package ru.job4j.dreamjob.repository;
 
+import org.apache.commons.dbcp2.BasicDataSource;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
-import ru.job4j.dreamjob.configuration.DatasourceConfiguration;
+import org.sql2o.Sql2o;
+import ru.job4j.dreamjob.configuration.TestDatasources;
 import ru.job4j.dreamjob.model.File;
 import ru.job4j.dreamjob.model.Vacancy;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
@@ -16,9 +20,14 @@ import static java.time.LocalDateTime.now;
 import static java.util.Collections.emptyList;
 import static java.util.Optional.empty;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 
 public class Sql2oVacancyRepositoryTest {
 
+    private static BasicDataSource datasource;
+
+    private static Sql2o sql2o;
+
     private static Sql2oVacancyRepository sql2oVacancyRepository;
 
     private static Sql2oFileRepository sql2oFileRepository;
@@ -35,12 +44,11 @@ public class Sql2oVacancyRepositoryTest {
         var username = properties.getProperty("datasource.username");
         var password = properties.getProperty("datasource.password");
 
-        var configuration = new DatasourceConfiguration();
-        var datasource = configuration.connectionPool(url, username, password);
-        var sql2o = configuration.databaseClient(datasource);
+        datasource = (BasicDataSource) TestDatasources.connectionPool(url, username, password);
+        sql2o = TestDatasources.databaseClient(datasource);
 
-        sql2oVacancyRepository = new Sql2oVacancyRepository(sql2o);
-        sql2oFileRepository = new Sql2oFileRepository(sql2o);
+        sql2oVacancyRepository = new Sql2oVacancyRepository(sql2o, sql2o, Duration.ZERO);
+        sql2oFileRepository = new Sql2oFileRepository(sql2o, sql2o, Duration.ZERO);
 
         file = new File("test", "test");
         sql2oFileRepository.save(file);
@@ -53,10 +61,23 @@ public class Sql2oVacancyRepositoryTest {
 
     @AfterEach
     public void clearVacancies() {
-        var vacancies = sql2oVacancyRepository.findAll();
-        for (var vacancy : vacancies) {
-            sql2oVacancyRepository.deleteById(vacancy.getId());
+        try (var connection = sql2o.open()) {
+            connection.createQuery("DELETE FROM vacancies").executeUpdate();
+        }
+    }
+
+    @Test
+    public void whenCreationDateIsNullThenFoundWithNullDate() {
+        var vacancy = sql2oVacancyRepository.save(new Vacancy(0, "title", "description", now(), true, 1, file.getId()));
+        try (var connection = sql2o.open()) {
+            connection.createQuery("UPDATE vacancies SET creation_date = NULL WHERE id = :id")
+                    .addParameter("id", vacancy.getId())
+                    .executeUpdate();
         }
+
+        var found = sql2oVacancyRepository.findById(vacancy.getId());
+
+        assertThat(found.get().getCreationDate()).isNull();
     }
 
     @Test
@@ -77,6 +98,50 @@ public class Sql2oVacancyRepositoryTest {
         assertThat(result).isEqualTo(List.of(vacancy1, vacancy2, vacancy3));
     }
 
+    @Test
+    public void whenFindPageThenGetNextInIdOrder() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var vacancy1 = sql2oVacancyRepository.save(new Vacancy(0, "title1", "description1", creationDate, true, 1, file.getId()));
+        var vacancy2 = sql2oVacancyRepository.save(new Vacancy(0, "title2", "description2", creationDate, true, 1, file.getId()));
+        var vacancy3 = sql2oVacancyRepository.save(new Vacancy(0, "title3", "description3", creationDate, true, 1, file.getId()));
+        var firstPage = sql2oVacancyRepository.findPage(0, 2);
+        var secondPage = sql2oVacancyRepository.findPage(vacancy2.getId(), 2);
+        assertThat(firstPage).isEqualTo(List.of(vacancy1, vacancy2));
+        assertThat(secondPage).isEqualTo(List.of(vacancy3));
+    }
+
+    @Test
+    public void whenStreamAllThenGetAllInIdOrder() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var vacancy1 = sql2oVacancyRepository.save(new Vacancy(0, "title1", "description1", creationDate, true, 1, file.getId()));
+        var vacancy2 = sql2oVacancyRepository.save(new Vacancy(0, "title2", "description2", creationDate, true, 1, file.getId()));
+        var vacancy3 = sql2oVacancyRepository.save(new Vacancy(0, "title3", "description3", creationDate, true, 1, file.getId()));
+        var streamed = new ArrayList<Vacancy>();
+        sql2oVacancyRepository.streamAll(streamed::add);
+        assertThat(streamed).isEqualTo(List.of(vacancy1, vacancy2, vacancy3));
+    }
+
+    @Test
+    public void whenStreamAllWithFilterThenGetOnlyMatching() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        sql2oVacancyRepository.save(new Vacancy(0, "title1", "description1", creationDate.minusDays(2), true, 1, file.getId()));
+        var vacancy2 = sql2oVacancyRepository.save(new Vacancy(0, "title2", "description2", creationDate, true, 1, file.getId()));
+        sql2oVacancyRepository.save(new Vacancy(0, "title3", "description3", creationDate, true, 2, file.getId()));
+        var streamed = new ArrayList<Vacancy>();
+        sql2oVacancyRepository.streamAll(1, creationDate.minusDays(1), creationDate.plusDays(1), streamed::add);
+        assertThat(streamed).isEqualTo(List.of(vacancy2));
+    }
+
+    @Test
+    public void whenStreamActionFailsThenConnectionIsReleased() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        sql2oVacancyRepository.save(new Vacancy(0, "title1", "description1", creationDate, true, 1, file.getId()));
+        assertThatThrownBy(() -> sql2oVacancyRepository.streamAll(vacancy -> {
+            throw new IllegalStateException("stop");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(datasource.getNumActive()).isEqualTo(0);
+    }
+
     @Test
     public void whenDontSaveThenNothingFound() {
         assertThat(sql2oVacancyRepository.findAll()).isEqualTo(emptyList());
@@ -112,6 +177,63 @@ public class Sql2oVacancyRepositoryTest {
         assertThat(savedVacancy).usingRecursiveComparison().isEqualTo(updatedVacancy);
     }
 
+    @Test
+    public void whenUpdateWithStaleVersionThenGetFalseAndKeepFirstUpdate() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var vacancy = sql2oVacancyRepository.save(new Vacancy(0, "title", "description", creationDate, true, 1, file.getId()));
+        var first = sql2oVacancyRepository.findById(vacancy.getId()).get();
+        var second = sql2oVacancyRepository.findById(vacancy.getId()).get();
+        first.setDescription("first");
+        second.setDescription("second");
+        var isFirstUpdated = sql2oVacancyRepository.update(first);
+        var isSecondUpdated = sql2oVacancyRepository.update(second);
+        var savedVacancy = sql2oVacancyRepository.findById(vacancy.getId()).get();
+        assertThat(isFirstUpdated).isTrue();
+        assertThat(isSecondUpdated).isFalse();
+        assertThat(savedVacancy.getDescription()).isEqualTo("first");
+        assertThat(savedVacancy.getVersion()).isEqualTo(1);
+    }
+
+    /* вторая база H2 изображает реплику, в которой есть только её собственная строка */
+    @Test
+    public void whenReplicaConfiguredThenReadsGoToReplicaExceptRightAfterWrite() {
+        var replica = TestDatasources.databaseClient(TestDatasources.connectionPool(
+                "jdbc:h2:mem:replica;MODE=PostgreSQL;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1", "", ""));
+        try (var connection = replica.open()) {
+            connection.createQuery("""
+                    CREATE TABLE vacancies (id int PRIMARY KEY, title varchar, description varchar,
+                        creation_date timestamp, visible boolean, city_id int, file_id int,
+                        version int DEFAULT 0, deleted_at timestamp)
+                    """).executeUpdate();
+            connection.createQuery("INSERT INTO vacancies (id, title, description, creation_date, visible, city_id, file_id) "
+                    + "VALUES (1000, 'replica', 'description', now(), true, 1, 1)").executeUpdate();
+        }
+        var routed = new Sql2oVacancyRepository(sql2o, replica, Duration.ZERO);
+        var readYourWrites = new Sql2oVacancyRepository(sql2o, replica, Duration.ofMinutes(1));
+
+        var replicaVacancy = routed.findById(1000);
+        var savedByRouted = routed.save(new Vacancy(0, "title", "description", now(), true, 1, file.getId()));
+        var savedByReadYourWrites = readYourWrites.save(new Vacancy(0, "title", "description", now(), true, 1, file.getId()));
+
+        assertThat(replicaVacancy.get().getTitle()).isEqualTo("replica");
+        assertThat(routed.findById(savedByRouted.getId())).isEqualTo(empty());
+        assertThat(readYourWrites.findById(savedByReadYourWrites.getId()).isPresent()).isTrue();
+        assertThat(readYourWrites.findById(1000)).isEqualTo(empty());
+    }
+
+    @Test
+    public void whenDeleteThenRowIsKeptUntilPurged() {
+        var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
+        var vacancy = sql2oVacancyRepository.save(new Vacancy(0, "title", "description", creationDate, true, 1, file.getId()));
+        sql2oVacancyRepository.deleteById(vacancy.getId());
+        var purgedBeforeDeletion = sql2oVacancyRepository.purgeDeleted(now().minusMinutes(1), 10);
+        var purged = sql2oVacancyRepository.purgeDeleted(now().plusMinutes(1), 10);
+        assertThat(sql2oVacancyRepository.findById(vacancy.getId())).isEqualTo(empty());
+        assertThat(sql2oVacancyRepository.update(vacancy)).isFalse();
+        assertThat(purgedBeforeDeletion).isEqualTo(0);
+        assertThat(purged).isEqualTo(1);
+    }
+
     @Test
     public void whenUpdateUnExistingVacancyThenGetFalse() {
         var creationDate = now().truncatedTo(ChronoUnit.MINUTES);
@@ -0,0 +1,58 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.storage.Checksums;
+import ru.job4j.dreamjob.storage.LocalBlobStore;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FileMetadataBackfillServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void whenRowsWithoutChecksumThenMetadataReadFromContentUntilPassCompleted() throws Exception {
+        var gif = new byte[] {'G', 'I', 'F', '8', '9', 'a', 1, 0, 1, 0, 0, 0, 0, ';'};
+        Files.write(directory.resolve("image"), gif);
+        Files.write(directory.resolve("text"), new byte[] {'t', 'e', 'x', 't'});
+        var fileRepository = mock(FileRepository.class);
+        when(fileRepository.findWithoutChecksum(0, 2)).thenReturn(List.of(file(1, "image"), file(2, "missing")));
+        when(fileRepository.findWithoutChecksum(2, 2)).thenReturn(List.of(file(3, "text")));
+        var backfillService = new FileMetadataBackfillService(fileRepository, new LocalBlobStore(directory), 2);
+
+        backfillService.backfill();
+        backfillService.backfill();
+        backfillService.backfill();
+
+        verify(fileRepository).updateMetadata(1, gif.length, "image/gif", Checksums.sha256(new ByteArrayInputStream(gif)));
+        verify(fileRepository).updateMetadata(eq(3), eq(4L), eq("application/octet-stream"), anyString());
+        verify(fileRepository, never()).updateMetadata(eq(2), anyLong(), anyString(), anyString());
+        verify(fileRepository, times(2)).findWithoutChecksum(anyInt(), anyInt());
+        assertThat(backfillService.isCompleted()).isTrue();
+        assertThat(backfillService.getBackfilled()).isEqualTo(2);
+    }
+
+    private static File file(int id, String path) {
+        var file = new File(path, path);
+        file.setId(id);
+        return file;
+    }
+}
@@ -0,0 +1,116 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.repository.UserStorageRepository;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StorageQuotaServiceTest {
+
+    private FileRepository fileRepository;
+
+    private UserStorageRepository userStorageRepository;
+
+    @BeforeEach
+    public void initRepositories() {
+        fileRepository = mock(FileRepository.class);
+        userStorageRepository = mock(UserStorageRepository.class);
+        when(fileRepository.sumSizeByUser()).thenReturn(Map.of(1, 900L));
+        when(userStorageRepository.findQuotas()).thenReturn(Map.of(2, 100L));
+    }
+
+    @Test
+    public void whenStartedThenUsageRebuiltFromFilesAndLimitApplied() {
+        when(fileRepository.sumSizeByUser()).thenReturn(Map.of(1, 900 * 1024L));
+        var quotaService = new StorageQuotaService(fileRepository, userStorageRepository, DataSize.ofKilobytes(1000));
+
+        quotaService.reserve(1, 100 * 1024);
+        var message = rejection(() -> quotaService.reserve(1, 1));
+
+        assertThat(quotaService.getUsedBytes(1)).isEqualTo(1000 * 1024L);
+        assertThat(message).isEqualTo("Недостаточно места для файла: занято 1000 КБ из 1000 КБ");
+    }
+
+    @Test
+    public void whenUserHasOwnQuotaThenItReplacesDefault() {
+        var quotaService = new StorageQuotaService(fileRepository, userStorageRepository, DataSize.ofBytes(1000));
+
+        rejection(() -> quotaService.reserve(2, 101));
+        quotaService.reserve(3, 1000);
+
+        assertThat(quotaService.getUsedBytes(2)).isEqualTo(0L);
+        assertThat(quotaService.getUsedBytes(3)).isEqualTo(1000L);
+    }
+
+    @Test
+    public void whenFlushThenOnlyChangedCountersWritten() {
+        var quotaService = new StorageQuotaService(fileRepository, userStorageRepository, DataSize.ofBytes(1000));
+        quotaService.flush();
+
+        quotaService.reserve(3, 10);
+        quotaService.release(1, 400);
+        quotaService.flush();
+        quotaService.reserve(0, 5000);
+        quotaService.flush();
+
+        verify(userStorageRepository).saveUsage(Map.of(1, 900L));
+        verify(userStorageRepository).saveUsage(Map.of(1, 500L, 3, 10L));
+        verify(userStorageRepository, never()).saveUsage(Map.of());
+    }
+
+    @Test
+    public void whenConcurrentReservesThenQuotaNeverExceeded() throws Exception {
+        var quotaService = new StorageQuotaService(fileRepository, userStorageRepository, DataSize.ofBytes(10_000));
+        var executor = Executors.newFixedThreadPool(8);
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<Integer>>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                var accepted = 0;
+                for (int i = 0; i < 1000; i++) {
+                    try {
+                        quotaService.reserve(5, 7);
+                        accepted++;
+                    } catch (IllegalArgumentException e) {
+                        continue;
+                    }
+                }
+                return accepted;
+            }));
+        }
+        start.countDown();
+        var accepted = 0;
+        for (var future : futures) {
+            accepted += future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(accepted).isEqualTo(10_000 / 7);
+        assertThat(quotaService.getUsedBytes(5)).isEqualTo(10_000L / 7 * 7);
+    }
+
+    private static String rejection(Runnable action) {
+        try {
+            action.run();
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        throw new AssertionError("Quota was not enforced");
+    }
+}
@@ -0,0 +1,138 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.job4j.dreamjob.model.File;
+import ru.job4j.dreamjob.repository.FileRepository;
+import ru.job4j.dreamjob.repository.MemoryScrubCursorRepository;
+import ru.job4j.dreamjob.storage.Checksums;
+import ru.job4j.dreamjob.storage.LocalBlobStore;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StorageScrubberServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private List<File> rows;
+
+    private FileRepository fileRepository;
+
+    private MemoryScrubCursorRepository cursorRepository;
+
+    @BeforeEach
+    public void initRepositories() throws Exception {
+        var old = FileTime.from(Instant.now().minus(Duration.ofDays(1)));
+        for (var key : List.of("live", "legacy", "old-orphan", "fresh-orphan")) {
+            Files.write(directory.resolve(key), new byte[] {1, 2, 3});
+            if (!key.equals("fresh-orphan")) {
+                Files.setLastModifiedTime(directory.resolve(key), old);
+            }
+        }
+        rows = List.of(
+                file(1, "live"),
+                file(2, directory.resolve("legacy").toString()),
+                file(3, "missing")
+        );
+        fileRepository = mock(FileRepository.class);
+        when(fileRepository.findPage(anyInt(), anyInt())).thenAnswer(invocation -> rows.stream()
+                .filter(file -> file.getId() > invocation.<Integer>getArgument(0))
+                .limit(invocation.<Integer>getArgument(1))
+                .toList());
+        when(fileRepository.findExistingPaths(any())).thenAnswer(invocation -> {
+            Collection<String> paths = invocation.getArgument(0);
+            return rows.stream().map(File::getPath).filter(paths::contains).collect(Collectors.toSet());
+        });
+        cursorRepository = new MemoryScrubCursorRepository();
+    }
+
+    @Test
+    public void whenPassCompletedThenMissingAndOldUnreferencedBlobsReported() {
+        var scrubber = scrubber(false, 3);
+
+        scrubber.scrub();
+        var afterFirstRun = scrubber.getStatistics();
+        scrubber.scrub();
+        var statistics = scrubber.getStatistics();
+
+        assertThat(afterFirstRun.getCompletedPasses()).isEqualTo(0L);
+        assertThat(statistics.getCompletedPasses()).isEqualTo(1L);
+        assertThat(statistics.getCheckedRows()).isEqualTo(3L);
+        assertThat(statistics.getCheckedBlobs()).isEqualTo(4L);
+        assertThat(statistics.getMissingBlobs()).isEqualTo(1L);
+        assertThat(statistics.getUnreferencedBlobs()).isEqualTo(1L);
+        assertThat(statistics.getDeletedBlobs()).isEqualTo(0L);
+        assertThat(Files.exists(directory.resolve("old-orphan"))).isTrue();
+        assertThat(cursorRepository.findPosition(StorageScrubberService.ROWS_CURSOR).get()).isEqualTo("0");
+        assertThat(cursorRepository.findPosition(StorageScrubberService.BLOBS_CURSOR).get()).isEqualTo("");
+    }
+
+    @Test
+    public void whenRepairThenOnlyOldUnreferencedBlobDeleted() {
+        var scrubber = scrubber(true, 10);
+
+        scrubber.scrub();
+
+        assertThat(scrubber.getStatistics().getDeletedBlobs()).isEqualTo(1L);
+        assertThat(Files.exists(directory.resolve("old-orphan"))).isFalse();
+        assertThat(Files.exists(directory.resolve("fresh-orphan"))).isTrue();
+        assertThat(Files.exists(directory.resolve("legacy"))).isTrue();
+        assertThat(Files.exists(directory.resolve("live"))).isTrue();
+    }
+
+    @Test
+    public void whenRestartedThenContinuesFromSavedCursor() {
+        scrubber(false, 3).scrub();
+
+        var restarted = scrubber(false, 3);
+        restarted.scrub();
+
+        assertThat(restarted.getStatistics().getCheckedRows()).isEqualTo(0L);
+        assertThat(restarted.getStatistics().getCheckedBlobs()).isEqualTo(1L);
+        assertThat(restarted.getStatistics().getCompletedPasses()).isEqualTo(1L);
+    }
+
+    @Test
+    public void whenContentDiffersFromStoredChecksumThenMismatchReported() throws Exception {
+        var live = rows.get(0);
+        live.setSize(3);
+        live.setSha256(Checksums.sha256(new ByteArrayInputStream(new byte[] {1, 2, 3})));
+        var legacy = rows.get(1);
+        legacy.setSize(3);
+        legacy.setSha256(Checksums.sha256(new ByteArrayInputStream(new byte[] {3, 2, 1})));
+        var scrubber = scrubber(false, 10);
+
+        scrubber.scrub();
+
+        assertThat(scrubber.getStatistics().getChecksumMismatches()).isEqualTo(1L);
+        assertThat(scrubber.getStatistics().getMissingBlobs()).isEqualTo(1L);
+    }
+
+    private StorageScrubberService scrubber(boolean repair, int batchSize) {
+        return new StorageScrubberService(fileRepository, new LocalBlobStore(directory), cursorRepository,
+                batchSize, Duration.ofHours(1), repair, true, 0);
+    }
+
+    private static File file(int id, String path) {
+        var file = new File(path, path);
+        file.setId(id);
+        return file;
+    }
+}
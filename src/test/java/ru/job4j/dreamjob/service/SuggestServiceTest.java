@@ -0,0 +1,66 @@
+package ru.job4j.dreamjob.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.job4j.dreamjob.model.City;
+import ru.job4j.dreamjob.model.Vacancy;
+import ru.job4j.dreamjob.repository.VacancyRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SuggestServiceTest {
+
+    private SuggestService suggestService;
+
+    @BeforeEach
+    public void initServices() {
+        var vacancyRepository = mock(VacancyRepository.class);
+        doAnswer(invocation -> {
+            Consumer<Vacancy> action = invocation.getArgument(0);
+            action.accept(vacancy(1, "Java разработчик", true));
+            action.accept(vacancy(2, "Секретный проект", false));
+            return null;
+        }).when(vacancyRepository).streamAll(any());
+        var cityService = mock(CityService.class);
+        when(cityService.findAll()).thenReturn(List.of(new City(1, "Москва"), new City(2, "Санкт-Петербург")));
+        suggestService = new SuggestService(vacancyRepository, cityService);
+    }
+
+    @Test
+    public void whenStartedThenOnlyVisibleTitlesSuggested() {
+        assertThat(suggestService.suggestTitles("java", 10)).isEqualTo(List.of("Java разработчик"));
+        assertThat(suggestService.suggestTitles("секр", 10).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void whenVacancyRenamedOrDeletedThenSuggestionsFollow() {
+        suggestService.index(vacancy(1, "Python разработчик", true));
+        suggestService.index(vacancy(3, "Тестировщик", true));
+
+        assertThat(suggestService.suggestTitles("java", 10).isEmpty()).isTrue();
+        assertThat(suggestService.suggestTitles("python", 10)).isEqualTo(List.of("Python разработчик"));
+
+        suggestService.removeVacancy(3);
+        assertThat(suggestService.suggestTitles("тест", 10).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void whenCityTypedInWrongLayoutThenCityFound() {
+        var cities = suggestService.suggestCities("gtnth", 10);
+
+        assertThat(cities.size()).isEqualTo(1);
+        assertThat(cities.get(0).getName()).isEqualTo("Санкт-Петербург");
+    }
+
+    private static Vacancy vacancy(int id, String title, boolean visible) {
+        return new Vacancy(id, title, "description", LocalDateTime.now(), visible, 1, 1);
+    }
+}
@@ -0,0 +1,85 @@
+package ru.job4j.dreamjob.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class CachingBlobStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private FakeS3Server server;
+
+    private S3BlobStore remote;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        server = new FakeS3Server();
+        remote = new S3BlobStore(server.getEndpoint(), "us-east-1", "dreamjob", "key", "secret", S3BlobStore.MIN_PART_SIZE);
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void whenReadTwiceThenSecondReadServedFromDisk() throws Exception {
+        var cache = new CachingBlobStore(remote, directory, 1024);
+        cache.put("image", new ByteArrayInputStream(new byte[] {1, 2, 3}), 3);
+
+        var first = cache.get("image").get().readAllBytes();
+        var requestsAfterFirst = server.getRequests();
+        var second = cache.get("image").get().readAllBytes();
+        var range = cache.get("image", 1, 1).get().readAllBytes();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(range).isEqualTo(new byte[] {2});
+        assertThat(server.getRequests()).isEqualTo(requestsAfterFirst);
+    }
+
+    @Test
+    public void whenCacheIsFullThenLeastRecentlyReadIsEvicted() throws Exception {
+        var cache = new CachingBlobStore(remote, directory, 250);
+        for (var key : new String[] {"a", "b", "c"}) {
+            cache.put(key, new ByteArrayInputStream(new byte[100]), 100);
+        }
+
+        cache.get("a").get().close();
+        Thread.sleep(20);
+        cache.get("b").get().close();
+        Thread.sleep(20);
+        cache.get("a").get().close();
+        Thread.sleep(20);
+        cache.get("c").get().close();
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(2L);
+        }
+        var requestsBefore = server.getRequests();
+        cache.get("a").get().close();
+        assertThat(server.getRequests()).isEqualTo(requestsBefore);
+    }
+
+    @Test
+    public void whenDeleteThenRemovedFromCacheAndRemote() throws Exception {
+        var cache = new CachingBlobStore(remote, directory, 1024);
+        cache.put("image", new ByteArrayInputStream(new byte[] {1}), 1);
+        cache.get("image").get().close();
+
+        cache.delete("image");
+
+        assertThat(cache.get("image").isEmpty()).isTrue();
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(0L);
+        }
+    }
+}
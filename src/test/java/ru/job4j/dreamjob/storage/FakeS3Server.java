@@ -0,0 +1,188 @@
+package ru.job4j.dreamjob.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Подставное S3 в том же процессе: объекты в памяти, PUT/GET с Range/HEAD/DELETE, список объектов и multipart-загрузка.
+ * Подпись не проверяется, только наличие заголовка Authorization в формате SigV4.
+ */
+public class FakeS3Server implements AutoCloseable {
+
+    /* у всех объектов одно время изменения, настоящие даты тестам не нужны */
+    public static final Instant CREATED = Instant.parse("2020-01-01T00:00:00Z");
+
+    private final HttpServer server;
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    private final Map<String, TreeMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    private final AtomicInteger uploadIds = new AtomicInteger();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    public FakeS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public URI getEndpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    public Map<String, byte[]> getObjects() {
+        return objects;
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    public int getOpenUploads() {
+        return uploads.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            var authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("AWS4-HMAC-SHA256 Credential=")) {
+                respond(exchange, 403, new byte[0]);
+                return;
+            }
+            var path = exchange.getRequestURI().getPath();
+            var query = query(exchange.getRequestURI().getRawQuery());
+            var body = exchange.getRequestBody().readAllBytes();
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    if (query.containsKey("uploadId")) {
+                        uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+                        exchange.getResponseHeaders().set("ETag", "\"part" + query.get("partNumber") + "\"");
+                    } else {
+                        objects.put(path, body);
+                    }
+                    respond(exchange, 200, new byte[0]);
+                }
+                case "POST" -> {
+                    if (query.containsKey("uploads")) {
+                        var uploadId = "upload-" + uploadIds.incrementAndGet();
+                        uploads.put(uploadId, new TreeMap<>());
+                        respond(exchange, 200, ("<InitiateMultipartUploadResult><UploadId>" + uploadId
+                                + "</UploadId></InitiateMultipartUploadResult>").getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        var content = new ByteArrayOutputStream();
+                        for (var part : uploads.remove(query.get("uploadId")).values()) {
+                            content.write(part);
+                        }
+                        objects.put(path, content.toByteArray());
+                        respond(exchange, 200, "<CompleteMultipartUploadResult/>".getBytes(StandardCharsets.UTF_8));
+                    }
+                }
+                case "GET" -> {
+                    if (query.containsKey("list-type")) {
+                        list(exchange, path, query);
+                    } else {
+                        get(exchange, path);
+                    }
+                }
+                case "HEAD" -> {
+                    var object = objects.get(path);
+                    if (object == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.length));
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "DELETE" -> {
+                    if (query.containsKey("uploadId")) {
+                        uploads.remove(query.get("uploadId"));
+                    } else {
+                        objects.remove(path);
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> respond(exchange, 405, new byte[0]);
+            }
+        }
+    }
+
+    private void get(HttpExchange exchange, String path) throws IOException {
+        var object = objects.get(path);
+        if (object == null) {
+            respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        var range = exchange.getRequestHeaders().getFirst("Range");
+        if (range == null) {
+            respond(exchange, 200, object);
+            return;
+        }
+        var bounds = range.substring("bytes=".length()).split("-");
+        var from = Integer.parseInt(bounds[0]);
+        if (from >= object.length) {
+            respond(exchange, 416, new byte[0]);
+            return;
+        }
+        var to = Math.min(Integer.parseInt(bounds[1]), object.length - 1);
+        exchange.getResponseHeaders().set("Content-Range", "bytes " + from + "-" + to + "/" + object.length);
+        respond(exchange, 206, Arrays.copyOfRange(object, from, to + 1));
+    }
+
+    private void list(HttpExchange exchange, String bucket, Map<String, String> query) throws IOException {
+        var prefix = bucket + "/";
+        var from = prefix + query.getOrDefault("start-after", "");
+        var maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        var result = new StringBuilder("<ListBucketResult>");
+        new TreeMap<>(objects).tailMap(from, false).entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(prefix))
+                .limit(maxKeys)
+                .forEach(entry -> result.append("<Contents><Key>").append(entry.getKey().substring(prefix.length()))
+                        .append("</Key><LastModified>").append(CREATED).append("</LastModified><Size>")
+                        .append(entry.getValue().length).append("</Size></Contents>"));
+        result.append("</ListBucketResult>");
+        respond(exchange, 200, result.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        var result = new HashMap<String, String>();
+        if (rawQuery == null) {
+            return result;
+        }
+        for (var parameter : rawQuery.split("&")) {
+            var separator = parameter.indexOf('=');
+            var name = separator < 0 ? parameter : parameter.substring(0, separator);
+            var value = separator < 0 ? "" : parameter.substring(separator + 1);
+            result.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return result;
+    }
+}
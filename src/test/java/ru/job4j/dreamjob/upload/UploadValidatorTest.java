@@ -0,0 +1,112 @@
+package ru.job4j.dreamjob.upload;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UploadValidatorTest {
+
+    private final UploadValidator validator = new UploadValidator(DataSize.ofKilobytes(100), DataSize.ofKilobytes(100),
+            DataSize.ofKilobytes(10), DataSize.ofKilobytes(100), 200, 100);
+
+    @Test
+    public void whenImagesWithinLimitsThenReadWithSanitizedName() throws Exception {
+        var png = validator.read(new MockMultipartFile("file", "фото.PNG", "image/png", image("png", 200, 100)));
+        var jpeg = validator.read(new MockMultipartFile("file", "photo.jpeg", "image/jpeg", image("jpeg", 50, 50)));
+        var gif = validator.read(new MockMultipartFile("file", "avatar", "image/gif", image("gif", 10, 10)));
+
+        assertThat(png.getName()).isEqualTo("фото.png");
+        assertThat(png.getSize()).isGreaterThan(0L);
+        assertThat(jpeg.getName()).isEqualTo("photo.jpeg");
+        assertThat(gif.getName()).isEqualTo("avatar.gif");
+    }
+
+    @Test
+    public void whenDimensionsExceedLimitThenRejected() throws Exception {
+        var message = rejection(new MockMultipartFile("file", "wide.jpg", "image/jpeg", image("jpeg", 201, 10)));
+
+        assertThat(message).isEqualTo("Изображение 201x10 больше допустимых 200x100 точек");
+    }
+
+    @Test
+    public void whenWebpHeaderThenDimensionsReadFromExtendedChunk() {
+        var webp = new byte[30];
+        System.arraycopy("RIFF".getBytes(StandardCharsets.US_ASCII), 0, webp, 0, 4);
+        System.arraycopy("WEBPVP8X".getBytes(StandardCharsets.US_ASCII), 0, webp, 8, 8);
+        /* ширина и высота минус один, по три байта little-endian */
+        webp[24] = (byte) 255;
+        webp[27] = (byte) 199;
+
+        var message = rejection(new MockMultipartFile("file", "big.webp", "image/webp", webp));
+
+        assertThat(message).isEqualTo("Изображение 256x200 больше допустимых 200x100 точек");
+    }
+
+    @Test
+    public void whenNotAnImageThenRejectedWhateverTheName() {
+        var html = "<html><script>alert(1)</script></html>".getBytes(StandardCharsets.UTF_8);
+
+        var message = rejection(new MockMultipartFile("file", "photo.png", "image/png", html));
+
+        assertThat(message).isEqualTo("Можно загрузить только изображение PNG, JPEG, GIF или WebP");
+    }
+
+    @Test
+    public void whenGifOverItsOwnLimitThenRejected() throws Exception {
+        var gif = new byte[11 * 1024];
+        System.arraycopy(image("gif", 1, 1), 0, gif, 0, 13);
+
+        var message = rejection(new MockMultipartFile("file", "a.gif", "image/gif", gif));
+
+        assertThat(message).isEqualTo("Файл больше допустимых 10 КБ");
+    }
+
+    @Test
+    public void whenDeclaredSizeOverLargestLimitThenContentNotRead() throws Exception {
+        var file = mock(MultipartFile.class);
+        when(file.getSize()).thenReturn(DataSize.ofMegabytes(50).toBytes());
+
+        rejection(file);
+
+        verify(file, never()).getInputStream();
+        verify(file, never()).getBytes();
+    }
+
+    @Test
+    public void whenNameHasPathAndControlCharactersThenOnlySafeFileNameKept() {
+        assertThat(UploadValidator.sanitizeName("../../etc/passwd.png", ImageType.PNG)).isEqualTo("passwd.png");
+        assertThat(UploadValidator.sanitizeName("C:\\Users\\me\\cv.exe", ImageType.JPEG)).isEqualTo("cv.jpg");
+        assertThat(UploadValidator.sanitizeName("evil\u202Egnp.exe", ImageType.GIF)).isEqualTo("evil_gnp.gif");
+        assertThat(UploadValidator.sanitizeName("..", ImageType.PNG)).isEqualTo("file.png");
+        assertThat(UploadValidator.sanitizeName("a<b>:c   d.png", ImageType.PNG)).isEqualTo("a_b__c d.png");
+    }
+
+    private String rejection(MultipartFile file) {
+        try {
+            validator.read(file);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        throw new AssertionError("Upload was not rejected");
+    }
+
+    private static byte[] image(String format, int width, int height) throws Exception {
+        var output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, output);
+        return output.toByteArray();
+    }
+}